@@ -2,6 +2,7 @@ package com.example.oms.api;
 
 import com.example.oms.api.dto.ErrorResponse;
 import com.example.oms.api.dto.ValidationErrorResponse;
+import com.example.oms.exception.OrderVersionConflictException;
 import com.example.oms.service.OrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +27,31 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(OrderService.InvalidStatusTransitionException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidTransition(
+            OrderService.InvalidStatusTransitionException ex, WebRequest request) {
+        String path = request.getDescription(false).replace("uri=", "");
+        ErrorResponse errorResponse = ErrorResponse.of(
+            HttpStatus.CONFLICT,
+            ex.getMessage(),
+            path
+        );
+        errorResponse.addDetail("currentStatus", ex.getCurrentStatus().name());
+        errorResponse.addDetail("requestedStatus", ex.getRequestedStatus().name());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OrderVersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflict(OrderVersionConflictException ex, WebRequest request) {
+        String path = request.getDescription(false).replace("uri=", "");
+        ErrorResponse errorResponse = ErrorResponse.of(
+            HttpStatus.CONFLICT,
+            ex.getMessage(),
+            path
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(OrderService.InvalidOrderOperationException.class)
     public ResponseEntity<ErrorResponse> handleBadRequest(RuntimeException ex, WebRequest request) {
         String path = request.getDescription(false).replace("uri=", "");
@@ -0,0 +1,37 @@
+package com.example.oms.api;
+
+import com.example.oms.api.dto.CursorPaginatedResponse;
+import com.example.oms.api.dto.OrderResponse;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.OrderSlice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/customers")
+public class CustomerOrderController {
+
+    private final OrderService orderService;
+
+    public CustomerOrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    /**
+     * Order history of one customer, newest first, paged with the cursor of the previous response
+     */
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<CursorPaginatedResponse<OrderResponse>> listCustomerOrders(
+            @PathVariable("id") UUID customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        OrderSlice slice = orderService.scrollCustomerOrders(customerId, cursor, size);
+        List<OrderResponse> content = slice.getOrders().stream()
+            .map(OrderResponse::from)
+            .toList();
+        return ResponseEntity.ok(new CursorPaginatedResponse<>(content, size, slice.getNextCursor(), null));
+    }
+}
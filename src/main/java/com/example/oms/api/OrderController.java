@@ -1,6 +1,9 @@
 package com.example.oms.api;
 
 import com.example.oms.api.dto.CreateOrderRequest;
+import com.example.oms.api.dto.CreateOrdersBatchRequest;
+import com.example.oms.api.dto.CreateOrdersBatchResponse;
+import com.example.oms.api.dto.CursorPaginatedResponse;
 import com.example.oms.api.dto.OrderItemRequest;
 import com.example.oms.api.dto.OrderResponse;
 import com.example.oms.api.dto.UpdateOrderStatusRequest;
@@ -8,14 +11,25 @@ import com.example.oms.api.dto.PaginatedResponse;
 import com.example.oms.model.Order;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
+import com.example.oms.service.CountMode;
+import com.example.oms.service.OrderHistoryService;
+import com.example.oms.service.OrderIdempotencyService;
 import com.example.oms.service.OrderService;
+import com.example.oms.service.OrderSlice;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,20 +38,37 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final OrderHistoryService orderHistoryService;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderIdempotencyService orderIdempotencyService,
+                           OrderHistoryService orderHistoryService, ObjectMapper objectMapper) {
         this.orderService = orderService;
+        this.orderIdempotencyService = orderIdempotencyService;
+        this.orderHistoryService = orderHistoryService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<OrderResponse> createOrder(
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         Order order = toDomain(request);
-        Order createdOrder = orderService.createOrder(order);
+        Order createdOrder = orderIdempotencyService.createOrder(order, idempotencyKey);
         OrderResponse response = OrderResponse.from(createdOrder);
         return ResponseEntity.created(URI.create("/api/orders/" + createdOrder.getId()))
                 .body(response);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<CreateOrdersBatchResponse> createOrders(@Valid @RequestBody CreateOrdersBatchRequest request) {
+        List<Order> orders = request.getOrders().stream()
+            .map(this::toBatchDomain)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(CreateOrdersBatchResponse.from(orderService.createOrders(orders)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrder(@PathVariable UUID id) {
         return orderService.getOrder(id)
@@ -46,37 +77,83 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * The order as it was at the given instant, rebuilt from its history; 404 if it did not exist yet
+     * or has no recorded history
+     */
+    @GetMapping("/{id}/state")
+    public ResponseEntity<OrderResponse> getOrderState(@PathVariable UUID id, @RequestParam Instant at) {
+        return orderHistoryService.stateAt(id, at)
+                .map(OrderResponse::from)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping
-    public ResponseEntity<PaginatedResponse<OrderResponse>> listOrders(
+    public ResponseEntity<CursorPaginatedResponse<OrderResponse>> listOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "none") String count) {
+        OrderSlice slice = orderService.scrollOrders(status, cursor, size, parseCountMode(count));
+        List<OrderResponse> content = slice.getOrders().stream()
+            .map(OrderResponse::from)
+            .toList();
+        return ResponseEntity.ok(new CursorPaginatedResponse<>(content, size, slice.getNextCursor(),
+            slice.getTotalElements()));
+    }
+
+    /**
+     * Streams every matching order, oldest first, as it is read from the database's forward-only
+     * cursor; unlike paging through the listing, the whole export is one query and memory use stays
+     * flat however many orders it holds
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        OrderExportFormat exportFormat = parseExportFormat(format);
+        orderService.checkExportRange(from, to);
+        StreamingResponseBody body = out -> {
+            OrderExportWriter writer = OrderExportWriter.create(exportFormat, out, objectMapper);
+            orderService.exportOrders(status, from, to, writer);
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("orders." + exportFormat.getFileExtension())
+                .build()
+                .toString())
+            .body(body);
+    }
+
+    /**
+     * Offset pagination, kept for clients that still send {@code page}; deep pages get slower and
+     * every page runs a count, so prefer the cursor listing above
+     */
+    @Deprecated
+    @GetMapping(params = "page")
+    public ResponseEntity<PaginatedResponse<OrderResponse>> listOrdersByPage(
             @RequestParam(required = false) OrderStatus status,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction) {
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(defaultValue = "exact") String count) {
         
-        Page<Order> orderPage = orderService.listOrders(
+        Slice<Order> orderPage = orderService.listOrders(
             status,
             page, 
             size, 
             sortBy, 
-            direction
-        );
-        
-        List<OrderResponse> content = orderPage.getContent().stream()
-            .map(OrderResponse::from)
-            .toList();
-            
-        PaginatedResponse<OrderResponse> response = new PaginatedResponse<>(
-            content,
-            orderPage.getNumber(),
-            orderPage.getSize(),
-            orderPage.getTotalElements(),
-            orderPage.getTotalPages(),
-            orderPage.isFirst(),
-            orderPage.isLast()
+            direction,
+            parseCountMode(count)
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(PaginatedResponse.from(orderPage.map(OrderResponse::from)));
     }
 
     @RequestMapping(path = "/{id}/status", method = {RequestMethod.PATCH, RequestMethod.PUT})
@@ -95,6 +172,22 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static OrderExportFormat parseExportFormat(String format) {
+        try {
+            return OrderExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new OrderService.InvalidOrderOperationException("format must be one of ndjson, csv, protobuf");
+        }
+    }
+
+    private static CountMode parseCountMode(String count) {
+        try {
+            return CountMode.valueOf(count.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new OrderService.InvalidOrderOperationException("count must be one of none, estimate, exact");
+        }
+    }
+
     private Order toDomain(CreateOrderRequest request) {
         Order order = new Order();
         order.setCustomerId(UUID.fromString(request.getCustomerId()));
@@ -107,6 +200,43 @@ public class OrderController {
         return order;
     }
     
+    /**
+     * Lenient conversion for batch entries, which skip bean validation: missing or malformed
+     * fields are left empty for the service to report against this entry only. A null entry stays
+     * null, and a null item becomes an empty one
+     */
+    private Order toBatchDomain(CreateOrderRequest request) {
+        if (request == null) {
+            return null;
+        }
+        Order order = new Order();
+        order.setCustomerId(parseUuidOrNull(request.getCustomerId()));
+        if (request.getItems() != null) {
+            order.setItems(request.getItems().stream()
+                .map(itemRequest -> {
+                    OrderItem item = new OrderItem();
+                    if (itemRequest == null) {
+                        return item;
+                    }
+                    item.setProductId(itemRequest.getProductId());
+                    item.setProductName(itemRequest.getProductName());
+                    item.setQuantity(itemRequest.getQuantity());
+                    item.setUnitPrice(itemRequest.getUnitPrice());
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        }
+        return order;
+    }
+
+    private static UUID parseUuidOrNull(String value) {
+        try {
+            return value == null ? null : UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private OrderItem toDomain(OrderItemRequest itemRequest) {
         return new OrderItem(
             itemRequest.getProductId(),
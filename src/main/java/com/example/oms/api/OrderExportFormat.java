@@ -0,0 +1,30 @@
+package com.example.oms.api;
+
+/**
+ * Output formats of the order export. Every format is written one order at a time, so the response
+ * never holds more than the order being written.
+ */
+public enum OrderExportFormat {
+    /** One {@link com.example.oms.api.dto.OrderResponse} JSON document per line */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** One row per order item with the order's columns repeated; an order without items gets one row */
+    CSV("text/csv", "csv"),
+    /** {@code com.example.oms.grpc.Order} messages, each preceded by its varint length */
+    PROTOBUF("application/x-protobuf", "bin");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    OrderExportFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.oms.api;
+
+import com.example.oms.api.dto.OrderResponse;
+import com.example.oms.grpc.GrpcOrderService;
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported orders to a response stream in one {@link OrderExportFormat}. Output is buffered and
+ * only flushed when the buffer fills, never per order; call {@link #finish()} after the last order.
+ */
+abstract class OrderExportWriter implements Consumer<Order> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static OrderExportWriter create(OrderExportFormat format, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        return switch (format) {
+            case NDJSON -> new Ndjson(buffered, objectMapper);
+            case CSV -> new Csv(buffered);
+            case PROTOBUF -> new Protobuf(buffered);
+        };
+    }
+
+    @Override
+    public void accept(Order order) {
+        try {
+            write(order);
+        } catch (IOException e) {
+            // Typically the client went away; this ends the export and releases its cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    abstract void write(Order order) throws IOException;
+
+    abstract void finish() throws IOException;
+
+    private static final class Ndjson extends OrderExportWriter {
+        private final ObjectWriter json;
+        private final JsonGenerator generator;
+
+        Ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.json = objectMapper.writerFor(OrderResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n");
+            this.generator = json.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void write(Order order) throws IOException {
+            json.writeValue(generator, OrderResponse.from(order));
+        }
+
+        @Override
+        void finish() throws IOException {
+            // The root value separator only goes between documents
+            if (generator.getOutputContext().getEntryCount() > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+
+    private static final class Csv extends OrderExportWriter {
+        private static final String HEADER = "order_id,customer_id,status,created_at,updated_at,total_amount,"
+                + "item_id,product_id,product_name,quantity,unit_price\n";
+
+        private final Writer out;
+
+        Csv(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.out.write(HEADER);
+        }
+
+        @Override
+        void write(Order order) throws IOException {
+            if (order.getItems().isEmpty()) {
+                writeRow(order, null);
+            }
+            for (OrderItem item : order.getItems()) {
+                writeRow(order, item);
+            }
+        }
+
+        private void writeRow(Order order, OrderItem item) throws IOException {
+            out.write(String.valueOf(order.getId()));
+            out.write(',');
+            out.write(String.valueOf(order.getCustomerId()));
+            out.write(',');
+            out.write(order.getStatus().name());
+            out.write(',');
+            writeField(order.getCreatedAt());
+            out.write(',');
+            writeField(order.getUpdatedAt());
+            out.write(',');
+            writeField(order.getTotalAmount());
+            if (item == null) {
+                out.write(",,,,,\n");
+                return;
+            }
+            out.write(',');
+            writeField(item.getId());
+            out.write(',');
+            writeText(item.getProductId());
+            out.write(',');
+            writeText(item.getProductName());
+            out.write(',');
+            out.write(Integer.toString(item.getQuantity()));
+            out.write(',');
+            writeField(item.getUnitPrice());
+            out.write('\n');
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value != null) {
+                out.write(value.toString());
+            }
+        }
+
+        // RFC 4180: free text is quoted when it holds a separator, a quote or a line break
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class Protobuf extends OrderExportWriter {
+        private final OutputStream out;
+
+        Protobuf(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void write(Order order) throws IOException {
+            GrpcOrderService.toProto(order).writeDelimitedTo(out);
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
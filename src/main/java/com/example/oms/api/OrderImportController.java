@@ -0,0 +1,37 @@
+package com.example.oms.api;
+
+import com.example.oms.api.dto.ImportOrdersRequest;
+import com.example.oms.api.dto.ImportOrdersResponse;
+import com.example.oms.service.OrderImportFormat;
+import com.example.oms.service.OrderImportResult;
+import com.example.oms.service.OrderImportService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+public class OrderImportController {
+
+    private final OrderImportService orderImportService;
+
+    public OrderImportController(OrderImportService orderImportService) {
+        this.orderImportService = orderImportService;
+    }
+
+    /**
+     * Imports a file from the server's import directory and answers once it is done; progress is
+     * logged and published as the order.import.orders metric meanwhile
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportOrdersResponse> importOrders(@Valid @RequestBody ImportOrdersRequest request) {
+        Path file = orderImportService.resolveInImportDirectory(request.getFile());
+        OrderImportFormat format = request.getFormat() == null || request.getFormat().isBlank()
+            ? null
+            : OrderImportFormat.parse(request.getFormat());
+        OrderImportResult result = orderImportService.importFile(file, format, request.isResume());
+        return ResponseEntity.ok(ImportOrdersResponse.from(result));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.oms.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public class CreateOrdersBatchRequest {
+    // Entries are not cascaded into bean validation: each order, null ones included, is checked on
+    // its own by the service so one bad order is reported in its result instead of rejecting the batch
+    @NotEmpty
+    private List<CreateOrderRequest> orders;
+
+    public List<CreateOrderRequest> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<CreateOrderRequest> orders) {
+        this.orders = orders;
+    }
+}
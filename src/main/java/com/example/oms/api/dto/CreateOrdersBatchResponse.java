@@ -0,0 +1,90 @@
+package com.example.oms.api.dto;
+
+import com.example.oms.service.OrderCreationResult;
+import java.util.List;
+
+public class CreateOrdersBatchResponse {
+    private List<Result> results;
+    private int created;
+    private int failed;
+
+    public static CreateOrdersBatchResponse from(List<OrderCreationResult> results) {
+        CreateOrdersBatchResponse response = new CreateOrdersBatchResponse();
+        response.setResults(results.stream().map(Result::from).toList());
+        response.setCreated((int) results.stream().filter(OrderCreationResult::isCreated).count());
+        response.setFailed(results.size() - response.getCreated());
+        return response;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public static class Result {
+        private int index;
+        private boolean created;
+        private OrderResponse order;
+        private String error;
+
+        public static Result from(OrderCreationResult result) {
+            Result dto = new Result();
+            dto.setIndex(result.getIndex());
+            dto.setCreated(result.isCreated());
+            dto.setOrder(result.isCreated() ? OrderResponse.from(result.getOrder()) : null);
+            dto.setError(result.getError());
+            return dto;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public boolean isCreated() {
+            return created;
+        }
+
+        public void setCreated(boolean created) {
+            this.created = created;
+        }
+
+        public OrderResponse getOrder() {
+            return order;
+        }
+
+        public void setOrder(OrderResponse order) {
+            this.order = order;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
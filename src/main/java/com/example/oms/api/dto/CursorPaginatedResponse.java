@@ -0,0 +1,55 @@
+package com.example.oms.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated listing. Pass {@code next_cursor} back as the {@code cursor}
+ * parameter to get the following page; it is null on the last page.
+ *
+ * @param <T> The type of the content in the page.
+ */
+public class CursorPaginatedResponse<T> {
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+    private final Long totalElements;
+
+    public CursorPaginatedResponse(List<T> content, int size, String nextCursor, Long totalElements) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    @JsonProperty
+    public List<T> getContent() {
+        return content;
+    }
+
+    @JsonProperty
+    public int getSize() {
+        return size;
+    }
+
+    @JsonProperty("next_cursor")
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @JsonProperty("has_next")
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Only present when requested with {@code count=estimate} or {@code count=exact}.
+     */
+    @JsonProperty("total_elements")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getTotalElements() {
+        return totalElements;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.oms.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class ImportOrdersRequest {
+    /** File name relative to order.import.directory */
+    @NotBlank
+    private String file;
+    /** csv or ndjson; taken from the file extension when missing */
+    private String format;
+    /** Continue from the file's checkpoint if an earlier import of it stopped part way */
+    private boolean resume = true;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.oms.api.dto;
+
+import com.example.oms.service.OrderImportResult;
+import java.util.List;
+
+public class ImportOrdersResponse {
+    private String file;
+    private long imported;
+    private long rejected;
+    private long duplicates;
+    private long resumedAtLine;
+    private long elapsedMs;
+    private long ordersPerSecond;
+    private List<Rejection> rejections;
+
+    public static ImportOrdersResponse from(OrderImportResult result) {
+        ImportOrdersResponse response = new ImportOrdersResponse();
+        response.setFile(result.getFile());
+        response.setImported(result.getImported());
+        response.setRejected(result.getRejected());
+        response.setDuplicates(result.getDuplicates());
+        response.setResumedAtLine(result.getResumedAtLine());
+        response.setElapsedMs(result.getElapsed().toMillis());
+        response.setOrdersPerSecond(Math.round(result.getOrdersPerSecond()));
+        response.setRejections(result.getRejections().stream().map(Rejection::from).toList());
+        return response;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getResumedAtLine() {
+        return resumedAtLine;
+    }
+
+    public void setResumedAtLine(long resumedAtLine) {
+        this.resumedAtLine = resumedAtLine;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getOrdersPerSecond() {
+        return ordersPerSecond;
+    }
+
+    public void setOrdersPerSecond(long ordersPerSecond) {
+        this.ordersPerSecond = ordersPerSecond;
+    }
+
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    public void setRejections(List<Rejection> rejections) {
+        this.rejections = rejections;
+    }
+
+    public static class Rejection {
+        private long line;
+        private String error;
+
+        public static Rejection from(OrderImportResult.Rejection rejection) {
+            Rejection response = new Rejection();
+            response.setLine(rejection.getLine());
+            response.setError(rejection.getError());
+            return response;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
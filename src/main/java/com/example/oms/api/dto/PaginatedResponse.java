@@ -1,7 +1,9 @@
 package com.example.oms.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -14,8 +16,8 @@ public class PaginatedResponse<T> {
     private final List<T> content;
     private final int page;
     private final int size;
-    private final long totalElements;
-    private final int totalPages;
+    private final Long totalElements;
+    private final Integer totalPages;
     private final boolean first;
     private final boolean last;
 
@@ -23,8 +25,8 @@ public class PaginatedResponse<T> {
             List<T> content,
             int page,
             int size,
-            long totalElements,
-            int totalPages,
+            Long totalElements,
+            Integer totalPages,
             boolean first,
             boolean last) {
         this.content = content;
@@ -51,13 +53,18 @@ public class PaginatedResponse<T> {
         return size;
     }
 
+    /**
+     * Omitted when the listing was requested with {@code count=none}.
+     */
     @JsonProperty("total_elements")
-    public long getTotalElements() {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getTotalElements() {
         return totalElements;
     }
 
     @JsonProperty("total_pages")
-    public int getTotalPages() {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getTotalPages() {
         return totalPages;
     }
 
@@ -71,6 +78,11 @@ public class PaginatedResponse<T> {
         return last;
     }
 
+    @JsonProperty("has_next")
+    public boolean hasNext() {
+        return !last;
+    }
+
     /**
      * Creates a PaginatedResponse from a Spring Data Page object.
      */
@@ -85,4 +97,22 @@ public class PaginatedResponse<T> {
             page.isLast()
         );
     }
+
+    /**
+     * Creates a PaginatedResponse from a Slice; totals are only present if the slice is a Page.
+     */
+    public static <T> PaginatedResponse<T> from(Slice<T> slice) {
+        if (slice instanceof Page<T> page) {
+            return from(page);
+        }
+        return new PaginatedResponse<>(
+            slice.getContent(),
+            slice.getNumber(),
+            slice.getSize(),
+            null,
+            null,
+            slice.isFirst(),
+            slice.isLast()
+        );
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.oms.config;
+
+import com.example.oms.repository.CachingOrderRepository;
+import com.example.oms.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Wraps whichever {@link OrderRepository} is active (MySQL or in-memory) in a
+ * {@link CachingOrderRepository} when {@code order.cache.enabled=true}. The wrapping happens after the
+ * repository's transactional proxy is created, so cache hits never open a transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.cache.enabled", havingValue = "true")
+public class OrderCacheConfig {
+
+    // Static so the post-processor is registered before the repository beans are created
+    @Bean
+    public static BeanPostProcessor orderRepositoryCachePostProcessor(Environment environment,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        long maxSize = environment.getProperty("order.cache.max-size", Long.class, 10_000L);
+        Duration ttl = Duration.ofMillis(environment.getProperty("order.cache.ttl-ms", Long.class, 30_000L));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof OrderRepository repository && !(bean instanceof CachingOrderRepository)) {
+                    return new CachingOrderRepository(repository, maxSize, ttl, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
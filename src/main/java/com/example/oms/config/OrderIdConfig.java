@@ -0,0 +1,19 @@
+package com.example.oms.config;
+
+import com.example.oms.model.OrderIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OrderIdConfig {
+
+    @Bean
+    public OrderIdGenerator orderIdGenerator(@Value("${order.id.strategy:uuidv7}") String strategy) {
+        return switch (strategy.toLowerCase()) {
+            case "uuidv7" -> OrderIdGenerator.timeOrdered();
+            case "random" -> OrderIdGenerator.random();
+            default -> throw new IllegalArgumentException("Unknown order.id.strategy: " + strategy);
+        };
+    }
+}
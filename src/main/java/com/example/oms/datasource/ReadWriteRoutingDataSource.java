@@ -0,0 +1,72 @@
+package com.example.oms.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to the replica pool and everything else to the primary.
+ * The decision is made when a connection is acquired, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transaction managers ask for
+ * the connection before the transaction's read-only flag is published.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    // Nesting depth of onPrimary on this thread
+    private static final ThreadLocal<int[]> PRIMARY_PINS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryConnections = routingCounter(meterRegistry, "primary");
+        this.replicaConnections = routingCounter(meterRegistry, "replica");
+    }
+
+    /**
+     * Runs {@code read} with connections taken from the primary even inside a read-only transaction,
+     * for reads that must see a write the replica may not have applied yet. Only affects connections
+     * acquired inside {@code read}.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        int[] pins = PRIMARY_PINS.get();
+        pins[0]++;
+        try {
+            return read.get();
+        } finally {
+            if (--pins[0] == 0) {
+                PRIMARY_PINS.remove();
+            }
+        }
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PRIMARY_PINS.get()[0] > 0;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPinnedToPrimary()) {
+            replicaConnections.increment();
+            return Target.REPLICA;
+        }
+        primaryConnections.increment();
+        return Target.PRIMARY;
+    }
+
+    private static Counter routingCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("order.datasource.connections.routed")
+                .description("Connections handed out by the read/write routing data source")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
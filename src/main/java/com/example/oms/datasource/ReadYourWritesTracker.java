@@ -0,0 +1,68 @@
+package com.example.oms.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which orders and customers were written recently, so reads about them go to the primary
+ * for a short window instead of a replica that may still be behind. Does nothing unless replica
+ * routing is enabled.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    // Entries expire a window after their last write; Caffeine evicts them in amortized maintenance
+    private final Cache<UUID, Boolean> pinned;
+
+    @Autowired
+    public ReadYourWritesTracker(@Value("${order.datasource.replica.enabled:false}") boolean enabled,
+                                 @Value("${order.datasource.read-your-writes-ms:5000}") long windowMs) {
+        this(enabled, Duration.ofMillis(windowMs), Clock.systemUTC());
+    }
+
+    public ReadYourWritesTracker(boolean enabled, Duration window, Clock clock) {
+        this.enabled = enabled;
+        this.pinned = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+    }
+
+    public static ReadYourWritesTracker disabled() {
+        return new ReadYourWritesTracker(false, Duration.ZERO, Clock.systemUTC());
+    }
+
+    /**
+     * @param key Order or customer ID that was just written
+     */
+    public void recordWrite(UUID key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        pinned.put(key, Boolean.TRUE);
+    }
+
+    public boolean isPinned(UUID key) {
+        if (!enabled || key == null) {
+            return false;
+        }
+        return pinned.getIfPresent(key) != null;
+    }
+
+    /**
+     * Runs the read against the primary if {@code key} was written within the window
+     */
+    public <T> T read(UUID key, Supplier<T> read) {
+        return isPinned(key) ? ReadWriteRoutingDataSource.onPrimary(read) : read.get();
+    }
+}
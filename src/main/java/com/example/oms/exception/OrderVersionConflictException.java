@@ -0,0 +1,33 @@
+package com.example.oms.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+/**
+ * Raised when an order is saved from a stale copy, i.e. someone else changed it after it was read.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class OrderVersionConflictException extends RuntimeException {
+    private final UUID orderId;
+    private final Long expectedVersion;
+
+    public OrderVersionConflictException(UUID orderId, Long expectedVersion) {
+        this(orderId, expectedVersion, null);
+    }
+
+    public OrderVersionConflictException(UUID orderId, Long expectedVersion, Throwable cause) {
+        super("Order " + orderId + " was modified concurrently (expected version " + expectedVersion + ")", cause);
+        this.orderId = orderId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -3,28 +3,50 @@ package com.example.oms.grpc;
 import com.example.oms.model.Order;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
+import com.example.oms.service.CountMode;
+import com.example.oms.service.OrderChangeFeed;
+import com.example.oms.service.OrderCreationResult;
+import com.example.oms.service.OrderIdempotencyService;
 import com.example.oms.service.OrderService;
-import com.example.oms.exception.OrderNotFoundException;
+import com.example.oms.service.OrderSlice;
+import com.example.oms.service.OrderWatchFilter;
 import com.google.protobuf.Timestamp;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.math.BigDecimal;
-import org.springframework.data.domain.Page;
 
 @Component
 public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final int watchBufferSize;
 
-    public GrpcOrderService(OrderService orderService) {
+    public GrpcOrderService(OrderService orderService, OrderIdempotencyService orderIdempotencyService,
+                            OrderChangeFeed orderChangeFeed,
+                            @Value("${order.watch.buffer-size:1000}") int watchBufferSize) {
+        if (watchBufferSize < 1) {
+            throw new IllegalArgumentException("order.watch.buffer-size must be positive");
+        }
         this.orderService = orderService;
+        this.orderIdempotencyService = orderIdempotencyService;
+        this.orderChangeFeed = orderChangeFeed;
+        this.watchBufferSize = watchBufferSize;
     }
 
     @Override
@@ -47,17 +69,54 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
             }
             order.setItems(orderItems);
             
-            Order savedOrder = orderService.createOrder(order);
+            Order savedOrder = orderIdempotencyService.createOrder(order, request.getIdempotencyKey());
 
             responseObserver.onNext(toProto(savedOrder));
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
             responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Invalid customer UUID").asRuntimeException());
+        } catch (OrderService.InvalidOrderOperationException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL.withDescription("Failed to create order").withCause(e).asRuntimeException());
         }
     }
 
+    @Override
+    public void createOrdersBatch(CreateOrdersBatchRequest request, StreamObserver<CreateOrdersBatchResponse> responseObserver) {
+        try {
+            List<Order> orders = new ArrayList<>(request.getOrdersCount());
+            for (CreateOrderRequest orderRequest : request.getOrdersList()) {
+                Order order = new Order();
+                // A malformed customer id is reported by the service against this entry only
+                order.setCustomerId(parseUuidOrNull(orderRequest.getCustomerId()));
+                List<OrderItem> orderItems = new ArrayList<>();
+                for (com.example.oms.grpc.OrderItem item : orderRequest.getItemsList()) {
+                    orderItems.add(new OrderItem(item.getProductId(), "", item.getQuantity(), BigDecimal.ZERO));
+                }
+                order.setItems(orderItems);
+                orders.add(order);
+            }
+
+            CreateOrdersBatchResponse.Builder response = CreateOrdersBatchResponse.newBuilder();
+            for (OrderCreationResult result : orderService.createOrders(orders)) {
+                CreateOrderResult.Builder protoResult = CreateOrderResult.newBuilder().setIndex(result.getIndex());
+                if (result.isCreated()) {
+                    protoResult.setOrder(toProto(result.getOrder()));
+                } else {
+                    protoResult.setError(result.getError());
+                }
+                response.addResults(protoResult);
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (OrderService.InvalidOrderOperationException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to create orders").withCause(e).asRuntimeException());
+        }
+    }
+
     @Override
     public void getOrder(OrderId request, StreamObserver<com.example.oms.grpc.Order> responseObserver) {
         try {
@@ -82,30 +141,31 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
     public void listOrders(ListOrdersRequest request, StreamObserver<ListOrdersResponse> responseObserver) {
         try {
             // Get orders based on status filter
-            List<Order> orders;
-            if (request.getStatus() != com.example.oms.grpc.OrderStatus.ORDER_STATUS_UNSPECIFIED) {
-                OrderStatus status = OrderStatus.valueOf(request.getStatus().name());
-                // Use paginated version with default page size
-                Page<Order> page = orderService.listOrders(status, 0, 100, "createdAt", "desc");
-                orders = page.getContent();
-            } else {
-                // Get all orders if no status filter is specified, with default pagination
-                Page<Order> page = orderService.listOrders(0, 100, "createdAt", "desc");
-                orders = page.getContent();
-            }
-            
+            OrderStatus status = request.getStatus() != com.example.oms.grpc.OrderStatus.ORDER_STATUS_UNSPECIFIED
+                    ? OrderStatus.valueOf(request.getStatus().name())
+                    : null;
+            int pageSize = request.getPageSize() > 0 ? request.getPageSize() : DEFAULT_PAGE_SIZE;
+            OrderSlice slice = orderService.scrollOrders(status, request.getPageToken(), pageSize,
+                    fromProtoCountMode(request.getCountMode()));
+
             // Convert to proto orders
-            List<com.example.oms.grpc.Order> protoOrders = orders.stream()
-                    .map(this::toProto)
+            List<com.example.oms.grpc.Order> protoOrders = slice.getOrders().stream()
+                    .map(GrpcOrderService::toProto)
                     .toList();
-                    
-            // Create response with orders (pagination info not available with current implementation)
-            ListOrdersResponse resp = ListOrdersResponse.newBuilder()
-                    .addAllOrders(protoOrders)
-                    .build();
-                    
-            responseObserver.onNext(resp);
+
+            ListOrdersResponse.Builder resp = ListOrdersResponse.newBuilder()
+                    .addAllOrders(protoOrders);
+            if (slice.hasNext()) {
+                resp.setNextPageToken(slice.getNextCursor());
+            }
+            if (slice.getTotalElements() != null) {
+                resp.setTotalCount(slice.getTotalElements());
+            }
+
+            responseObserver.onNext(resp.build());
             responseObserver.onCompleted();
+        } catch (OrderService.InvalidOrderOperationException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL
                     .withDescription("Failed to list orders: " + e.getMessage())
@@ -114,12 +174,46 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         }
     }
 
+    @Override
+    public void listCustomerOrders(ListCustomerOrdersRequest request,
+                                   StreamObserver<ListOrdersResponse> responseObserver) {
+        try {
+            UUID customerId = parseUuid(request.getCustomerId());
+            int pageSize = request.getPageSize() > 0 ? request.getPageSize() : DEFAULT_PAGE_SIZE;
+            OrderSlice slice = orderService.scrollCustomerOrders(customerId, request.getPageToken(), pageSize);
+
+            ListOrdersResponse.Builder resp = ListOrdersResponse.newBuilder()
+                    .addAllOrders(slice.getOrders().stream().map(GrpcOrderService::toProto).toList());
+            if (slice.hasNext()) {
+                resp.setNextPageToken(slice.getNextCursor());
+            }
+
+            responseObserver.onNext(resp.build());
+            responseObserver.onCompleted();
+        } catch (OrderService.InvalidOrderOperationException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Invalid UUID").asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to list customer orders: " + e.getMessage())
+                    .withCause(e)
+                    .asRuntimeException());
+        }
+    }
+
     @Override
     public void updateOrderStatus(UpdateOrderStatusRequest request, StreamObserver<com.example.oms.grpc.Order> responseObserver) {
+        if (request.getStatus() == com.example.oms.grpc.OrderStatus.ORDER_STATUS_UNSPECIFIED
+                || request.getStatus() == com.example.oms.grpc.OrderStatus.UNRECOGNIZED) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("A target status is required")
+                    .asRuntimeException());
+            return;
+        }
         try {
             UUID id = parseUuid(request.getId());
             var updated = orderService.updateOrderStatus(id, fromProtoStatus(request.getStatus()))
-                    .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + id));
+                    .orElseThrow(() -> new OrderService.OrderNotFoundException(id));
             responseObserver.onNext(toProto(updated));
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
@@ -138,7 +232,7 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         try {
             UUID id = parseUuid(request.getId());
             var cancelled = orderService.cancelOrder(id)
-                    .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + id));
+                    .orElseThrow(() -> new OrderService.OrderNotFoundException(id));
             responseObserver.onNext(toProto(cancelled));
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
@@ -152,11 +246,63 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         }
     }
 
+    /**
+     * Streams matching order changes committed on this node until the client cancels. Each call gets
+     * its own bounded buffer; a client that falls behind gets ResyncRequired instead of the dropped
+     * updates.
+     */
+    @Override
+    public void watchOrders(WatchOrdersRequest request, StreamObserver<WatchOrdersResponse> responseObserver) {
+        OrderWatchFilter filter;
+        try {
+            Set<UUID> orderIds = new HashSet<>();
+            for (String id : request.getOrderIdsList()) {
+                orderIds.add(parseUuid(id));
+            }
+            UUID customerId = request.getCustomerId().isEmpty() ? null : parseUuid(request.getCustomerId());
+            Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+            for (com.example.oms.grpc.OrderStatus status : request.getStatusesList()) {
+                if (status == com.example.oms.grpc.OrderStatus.ORDER_STATUS_UNSPECIFIED
+                        || status == com.example.oms.grpc.OrderStatus.UNRECOGNIZED) {
+                    throw new OrderService.InvalidOrderOperationException("Unknown order status in statuses");
+                }
+                statuses.add(fromProtoStatus(status));
+            }
+            filter = new OrderWatchFilter(orderIds, customerId, statuses);
+        } catch (OrderService.InvalidOrderOperationException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Invalid UUID").asRuntimeException());
+            return;
+        }
+
+        ServerCallStreamObserver<WatchOrdersResponse> call =
+                (ServerCallStreamObserver<WatchOrdersResponse>) responseObserver;
+        OrderWatchStream stream = new OrderWatchStream(call, watchBufferSize);
+        OrderChangeFeed.Subscription subscription = orderChangeFeed.subscribe(filter, stream);
+        // Both handlers must be set before this method returns
+        call.setOnCancelHandler(() -> {
+            subscription.cancel();
+            stream.close();
+        });
+        call.setOnReadyHandler(stream::drain);
+    }
+
     private static UUID parseUuid(String id) {
         return UUID.fromString(id);
     }
 
-    private com.example.oms.grpc.Order toProto(Order order) {
+    private static UUID parseUuidOrNull(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Also used for the protobuf order export
+    public static com.example.oms.grpc.Order toProto(Order order) {
         return toProto(
             order.getId().toString(),
             order.getCustomerId().toString(),
@@ -166,7 +312,7 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         );
     }
 
-    private com.example.oms.grpc.Order toProto(String id, String customerId, Instant createdAt, OrderStatus status, List<OrderItem> items) {
+    private static com.example.oms.grpc.Order toProto(String id, String customerId, Instant createdAt, OrderStatus status, List<OrderItem> items) {
         com.example.oms.grpc.Order.Builder builder = com.example.oms.grpc.Order.newBuilder()
                 .setId(id)
                 .setCustomerId(customerId)
@@ -185,7 +331,7 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         return builder.build();
     }
 
-    private com.example.oms.grpc.OrderStatus toProtoStatus(OrderStatus status) {
+    static com.example.oms.grpc.OrderStatus toProtoStatus(OrderStatus status) {
         return switch (status) {
             case PENDING -> com.example.oms.grpc.OrderStatus.PENDING;
             case PROCESSING -> com.example.oms.grpc.OrderStatus.PROCESSING;
@@ -195,6 +341,14 @@ public class GrpcOrderService extends OrderServiceGrpc.OrderServiceImplBase {
         };
     }
 
+    private static CountMode fromProtoCountMode(com.example.oms.grpc.CountMode countMode) {
+        return switch (countMode) {
+            case COUNT_MODE_ESTIMATE -> CountMode.ESTIMATE;
+            case COUNT_MODE_EXACT -> CountMode.EXACT;
+            case COUNT_MODE_NONE, COUNT_MODE_UNSPECIFIED, UNRECOGNIZED -> CountMode.NONE;
+        };
+    }
+
     private static OrderStatus fromProtoStatus(com.example.oms.grpc.OrderStatus status) {
         return switch (status) {
             case PENDING -> OrderStatus.PENDING;
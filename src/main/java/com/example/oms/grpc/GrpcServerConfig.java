@@ -44,7 +44,10 @@ public class GrpcServerConfig {
     private void shutdown() throws InterruptedException {
         if (server != null) {
             log.info("Shutting down gRPC server...");
-            server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+            // WatchOrders streams only end when their clients cancel, so they are cut after the grace period
+            if (!server.shutdown().awaitTermination(5, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
         }
     }
 }
@@ -0,0 +1,102 @@
+package com.example.oms.grpc;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.service.OrderChangeFeed;
+import com.google.protobuf.Timestamp;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+
+/**
+ * One WatchOrders call. Updates are buffered, up to {@code capacity}, and written only while the call
+ * is ready, so a slow client never makes the server queue unbounded data in the transport. When the
+ * buffer overflows, or the feed itself lost changes, everything buffered is dropped and the client gets
+ * a single ResyncRequired before the updates that follow it.
+ */
+final class OrderWatchStream implements OrderChangeFeed.Watcher {
+
+    private final ServerCallStreamObserver<WatchOrdersResponse> call;
+    private final int capacity;
+    private final Queue<WatchOrdersResponse> buffer = new ArrayDeque<>();
+    private boolean resyncPending;
+    private long dropped;
+    private boolean closed;
+
+    OrderWatchStream(ServerCallStreamObserver<WatchOrdersResponse> call, int capacity) {
+        this.call = call;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized boolean onChange(OrderLifecycleEvent event, @Nullable UUID customerId) {
+        if (closed) {
+            return true;
+        }
+        if (buffer.size() == capacity) {
+            dropBuffered();
+            dropped++;
+            drain();
+            return false;
+        }
+        buffer.add(toResponse(event, customerId));
+        drain();
+        return true;
+    }
+
+    @Override
+    public synchronized void onMissed() {
+        if (!closed) {
+            dropBuffered();
+            drain();
+        }
+    }
+
+    /**
+     * Writes buffered messages while the transport accepts them; called for every new change and by the
+     * call's onReady handler once a slow client has caught up
+     */
+    synchronized void drain() {
+        while (!closed && call.isReady()) {
+            if (resyncPending) {
+                call.onNext(WatchOrdersResponse.newBuilder()
+                        .setResync(ResyncRequired.newBuilder().setDroppedUpdates(dropped))
+                        .build());
+                resyncPending = false;
+                dropped = 0;
+                continue;
+            }
+            WatchOrdersResponse next = buffer.poll();
+            if (next == null) {
+                return;
+            }
+            call.onNext(next);
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        buffer.clear();
+    }
+
+    private void dropBuffered() {
+        dropped += buffer.size();
+        buffer.clear();
+        resyncPending = true;
+    }
+
+    private static WatchOrdersResponse toResponse(OrderLifecycleEvent event, @Nullable UUID customerId) {
+        OrderUpdate.Builder update = OrderUpdate.newBuilder()
+                .setOrderId(event.getOrderId().toString())
+                .setStatus(GrpcOrderService.toProtoStatus(event.getStatus()))
+                .setOccurredAt(Timestamp.newBuilder()
+                        .setSeconds(event.getOccurredAt().getEpochSecond())
+                        .setNanos(event.getOccurredAt().getNano()));
+        if (customerId != null) {
+            update.setCustomerId(customerId.toString());
+        }
+        return WatchOrdersResponse.newBuilder().setUpdate(update).build();
+    }
+}
@@ -30,8 +30,8 @@ public class OrderServiceHealthIndicator implements HealthIndicator {
             // Check if we can perform a simple operation within the timeout
             CompletableFuture<Boolean> healthCheck = CompletableFuture.supplyAsync(() -> {
                 try {
-                    // Try to list first page of orders as a health check
-                    orderService.listOrders(0, 1, "createdAt", "DESC");
+                    // Try to list first page of orders as a health check, without counting them
+                    orderService.scrollOrders(null, null, 1);
                     return true;
                 } catch (Exception e) {
                     return false;
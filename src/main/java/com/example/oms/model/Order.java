@@ -20,6 +20,8 @@ public class Order {
     private OrderStatus status;
     private BigDecimal totalAmount;
     private List<OrderItem> items;
+    // Optimistic locking version; null until the order has been persisted
+    private Long version;
 
     public Order() {
         this.items = new ArrayList<>();
@@ -145,6 +147,14 @@ public class Order {
         this.totalAmount = totalAmount;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<OrderItem> getItems() {
         return items != null ? Collections.unmodifiableList(items) : Collections.emptyList();
     }
@@ -0,0 +1,100 @@
+package com.example.oms.model;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Position in the newest-first order listing: the (createdAt, id) key of the last order of a page.
+ * The next page holds the orders strictly after it in (createdAt DESC, id DESC) order; id breaks ties
+ * between orders created in the same instant. Encoded as an opaque URL-safe token for clients.
+ */
+public final class OrderCursor {
+
+    private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    /**
+     * The listing order keyed by the cursor. Ids compare as unsigned bytes, the way the database
+     * compares BINARY(16) values, so every repository walks orders in the same sequence.
+     */
+    public static final Comparator<Order> NEWEST_FIRST = Comparator
+            .comparing(Order::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Order::getId, (a, b) -> compareUnsigned(b, a));
+
+    /**
+     * {@link #NEWEST_FIRST} for the cursors themselves, for indexes kept in listing order
+     */
+    public static final Comparator<OrderCursor> KEYS_NEWEST_FIRST = Comparator
+            .comparing(OrderCursor::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(OrderCursor::getId, (a, b) -> compareUnsigned(b, a));
+
+    private final Instant createdAt;
+    private final UUID id;
+
+    public OrderCursor(Instant createdAt, UUID id) {
+        this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
+        this.id = Objects.requireNonNull(id, "id");
+    }
+
+    public static OrderCursor of(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != TOKEN_BYTES) {
+            throw new IllegalArgumentException("Malformed order cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        return new OrderCursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES)
+                .putLong(createdAt.getEpochSecond())
+                .putInt(createdAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * True if the order comes after this cursor in {@link #NEWEST_FIRST} order
+     */
+    public boolean precedes(Order order) {
+        int byTime = order.getCreatedAt().compareTo(createdAt);
+        return byTime != 0 ? byTime < 0 : compareUnsigned(order.getId(), id) < 0;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderCursor that)) return false;
+        return createdAt.equals(that.createdAt) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdAt, id);
+    }
+}
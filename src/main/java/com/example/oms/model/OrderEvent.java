@@ -0,0 +1,142 @@
+package com.example.oms.model;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One entry of an order's history: a change made to the order and its place in the order's own
+ * sequence, which starts at 1 with CREATED. Applying an order's events in sequence order, from the
+ * start or from a {@link OrderSnapshot}, rebuilds the order as it was after the last one applied.
+ * <p>
+ * Events are built with sequence 0 and numbered when they are recorded.
+ */
+public final class OrderEvent {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        ITEMS_CHANGED
+    }
+
+    private final UUID orderId;
+    private final long sequence;
+    private final Type type;
+    private final Instant occurredAt;
+    private final String recordedBy;
+    private final OrderStatus status;
+    private final UUID customerId;
+    private final List<OrderItem> items;
+
+    public OrderEvent(UUID orderId, long sequence, Type type, Instant occurredAt, @Nullable String recordedBy,
+                      @Nullable OrderStatus status, @Nullable UUID customerId, List<OrderItem> items) {
+        this.orderId = Objects.requireNonNull(orderId, "orderId");
+        this.sequence = sequence;
+        this.type = Objects.requireNonNull(type, "type");
+        // Kept to the precision of the TIMESTAMP(6) columns, so a stored event compares like the original
+        this.occurredAt = Objects.requireNonNull(occurredAt, "occurredAt").truncatedTo(ChronoUnit.MICROS);
+        this.recordedBy = recordedBy;
+        this.status = status;
+        this.customerId = customerId;
+        this.items = copyOf(items);
+    }
+
+    public static OrderEvent created(Order order, @Nullable String recordedBy) {
+        return new OrderEvent(order.getId(), 0, Type.CREATED, order.getCreatedAt(), recordedBy, order.getStatus(),
+                order.getCustomerId(), order.getItems());
+    }
+
+    public static OrderEvent statusChanged(UUID orderId, OrderStatus status, Instant occurredAt,
+                                           @Nullable String recordedBy) {
+        return new OrderEvent(orderId, 0, Type.STATUS_CHANGED, occurredAt, recordedBy, status, null, List.of());
+    }
+
+    public static OrderEvent itemsChanged(Order order, @Nullable String recordedBy) {
+        return new OrderEvent(order.getId(), 0, Type.ITEMS_CHANGED, order.getUpdatedAt(), recordedBy, null, null,
+                order.getItems());
+    }
+
+    public OrderEvent withSequence(long sequence) {
+        return new OrderEvent(orderId, sequence, type, occurredAt, recordedBy, status, customerId, items);
+    }
+
+    /**
+     * @param state The order as it was before this event, or null for a CREATED event
+     * @return A new order as it was after this event; {@code state} is left untouched
+     * @throws IllegalStateException if a change other than CREATED has no state to apply to
+     */
+    public Order applyTo(@Nullable Order state) {
+        if (type == Type.CREATED) {
+            Order created = new Order(orderId, customerId, occurredAt, status, copyOf(items));
+            created.setCreatedBy(recordedBy);
+            created.setUpdatedBy(recordedBy);
+            return created;
+        }
+        if (state == null) {
+            throw new IllegalStateException("Order " + orderId + " has no CREATED event before sequence " + sequence);
+        }
+        Order next = new Order(orderId, state.getCustomerId(), state.getCreatedAt(),
+                type == Type.STATUS_CHANGED ? status : state.getStatus(),
+                copyOf(type == Type.ITEMS_CHANGED ? items : state.getItems()));
+        next.setCreatedBy(state.getCreatedBy());
+        next.setUpdatedAt(occurredAt);
+        next.setUpdatedBy(recordedBy != null ? recordedBy : state.getUpdatedBy());
+        return next;
+    }
+
+    // Items are detached from the order they came from, so history never shares them with live orders
+    private static List<OrderItem> copyOf(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> new OrderItem(item.getProductId(), item.getProductName(), item.getQuantity(),
+                        item.getUnitPrice()))
+                .toList();
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Nullable
+    public String getRecordedBy() {
+        return recordedBy;
+    }
+
+    /**
+     * The order's status after a CREATED or STATUS_CHANGED event, null for ITEMS_CHANGED
+     */
+    @Nullable
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Set on CREATED events only
+     */
+    @Nullable
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * The order's items after a CREATED or ITEMS_CHANGED event, empty for STATUS_CHANGED
+     */
+    public List<OrderItem> getItems() {
+        return items;
+    }
+}
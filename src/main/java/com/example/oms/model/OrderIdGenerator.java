@@ -0,0 +1,25 @@
+package com.example.oms.model;
+
+import java.util.UUID;
+
+/**
+ * Source of order primary keys.
+ */
+public interface OrderIdGenerator {
+
+    UUID next();
+
+    /**
+     * Time-ordered UUIDv7 ids; consecutive ids land next to each other in the clustered index.
+     */
+    static OrderIdGenerator timeOrdered() {
+        return UuidV7Generator.shared();
+    }
+
+    /**
+     * Random UUIDv4 ids, as used before time-ordered ids were introduced.
+     */
+    static OrderIdGenerator random() {
+        return UUID::randomUUID;
+    }
+}
@@ -21,7 +21,7 @@ public class OrderItem {
         this.productName = productName;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
-        this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        calculateTotalPrice();
     }
 
     public UUID getId() {
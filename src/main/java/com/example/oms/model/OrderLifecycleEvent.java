@@ -0,0 +1,67 @@
+package com.example.oms.model;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Notice to downstream systems that an order was created or changed status. Events are thin: they
+ * carry the order id and its new status, and consumers read anything else they need by id.
+ * Ids are time-ordered UUIDv7s, so the outbox hands events on in the order they were recorded.
+ */
+public final class OrderLifecycleEvent {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED
+    }
+
+    private final UUID id;
+    private final UUID orderId;
+    private final Type type;
+    private final OrderStatus status;
+    private final Instant occurredAt;
+
+    public OrderLifecycleEvent(UUID id, UUID orderId, Type type, OrderStatus status, Instant occurredAt) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.orderId = Objects.requireNonNull(orderId, "orderId");
+        this.type = Objects.requireNonNull(type, "type");
+        this.status = Objects.requireNonNull(status, "status");
+        this.occurredAt = Objects.requireNonNull(occurredAt, "occurredAt");
+    }
+
+    public static OrderLifecycleEvent created(Order order) {
+        return new OrderLifecycleEvent(UuidV7Generator.shared().next(), order.getId(), Type.CREATED,
+                order.getStatus(), order.getCreatedAt());
+    }
+
+    public static OrderLifecycleEvent statusChanged(UUID orderId, OrderStatus status, Instant occurredAt) {
+        return new OrderLifecycleEvent(UuidV7Generator.shared().next(), orderId, Type.STATUS_CHANGED, status,
+                occurredAt);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + orderId + " " + status + " at " + occurredAt;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.oms.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An order as it was after the event with the given sequence, stored every few events so rebuilding
+ * the order starts from here rather than from its CREATED event.
+ */
+public final class OrderSnapshot {
+
+    private final long sequence;
+    private final Instant occurredAt;
+    private final Order state;
+
+    public OrderSnapshot(long sequence, Instant occurredAt, Order state) {
+        this.sequence = sequence;
+        this.occurredAt = Objects.requireNonNull(occurredAt, "occurredAt");
+        this.state = Objects.requireNonNull(state, "state");
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * When the event at {@link #getSequence()} happened
+     */
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public Order getState() {
+        return state;
+    }
+}
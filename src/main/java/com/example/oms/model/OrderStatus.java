@@ -1,11 +1,69 @@
 package com.example.oms.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
-}
+    CANCELLED;
+
+    // Transition table indexed by ordinal, built once; both directions are kept so a conditional
+    // update can be phrased as "WHERE status IN (allowed predecessors of the target)"
+    private static final Set<OrderStatus>[] SUCCESSORS = table();
+    private static final Set<OrderStatus>[] PREDECESSORS = table();
+
+    static {
+        allow(PENDING, PROCESSING, SHIPPED, CANCELLED);
+        allow(PROCESSING, SHIPPED, CANCELLED);
+        allow(SHIPPED, DELIVERED);
+        for (OrderStatus status : values()) {
+            SUCCESSORS[status.ordinal()] = Collections.unmodifiableSet(SUCCESSORS[status.ordinal()]);
+            PREDECESSORS[status.ordinal()] = Collections.unmodifiableSet(PREDECESSORS[status.ordinal()]);
+        }
+    }
+
+    /**
+     * @return true if an order in this status may move to {@code target}
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return SUCCESSORS[ordinal()].contains(target);
+    }
 
+    /**
+     * @return the statuses an order may move to from this status
+     */
+    public Set<OrderStatus> allowedSuccessors() {
+        return SUCCESSORS[ordinal()];
+    }
 
+    /**
+     * @return the statuses from which an order may move to this status
+     */
+    public Set<OrderStatus> allowedPredecessors() {
+        return PREDECESSORS[ordinal()];
+    }
+
+    public boolean isFinal() {
+        return SUCCESSORS[ordinal()].isEmpty();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<OrderStatus>[] table() {
+        Set<OrderStatus>[] table = new Set[values().length];
+        for (OrderStatus status : values()) {
+            table[status.ordinal()] = EnumSet.noneOf(OrderStatus.class);
+        }
+        return table;
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... targets) {
+        for (OrderStatus target : targets) {
+            SUCCESSORS[from.ordinal()].add(target);
+            PREDECESSORS[target.ordinal()].add(from);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.oms.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * RFC 9562 UUIDv7 generator: 48-bit Unix millisecond timestamp, then a 12-bit sequence in the
+ * rand_a field, then 62 random bits. The timestamp and sequence are packed into one AtomicLong and
+ * advanced with compare-and-set, so ids are strictly increasing across all threads without locking.
+ * If more than 4096 ids are requested within one millisecond the sequence carries into the
+ * timestamp, which then runs slightly ahead of the clock until the clock catches up.
+ */
+public final class UuidV7Generator implements OrderIdGenerator {
+
+    private static final UuidV7Generator SHARED = new UuidV7Generator(System::currentTimeMillis);
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000000000000000L;
+    private static final long RANDOM_62_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final LongSupplier clock;
+    // (timestamp << 12) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public UuidV7Generator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Process-wide instance; sharing it keeps ids monotonic between the service and the entity layer.
+     */
+    public static UuidV7Generator shared() {
+        return SHARED;
+    }
+
+    @Override
+    public UUID next() {
+        long now = clock.getAsLong() << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            // A new millisecond restarts the sequence at zero; otherwise bump it
+            next = Math.max(now, prev + 1);
+        } while (!last.compareAndSet(prev, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long msb = (timestamp << 16) | VERSION_7 | (next & SEQUENCE_MASK);
+        long lsb = (ThreadLocalRandom.current().nextLong() & RANDOM_62_MASK) | VARIANT_RFC;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.oms.outbox;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a local NDJSON file, one event per line, for consumers that tail a file instead of
+ * running in this process. Each batch is written with one call and forced to disk before the relay marks
+ * it delivered, so a crash can repeat the last batch in the file but never lose it.
+ */
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "file")
+public class FileOrderEventSink implements OrderEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+
+    public FileOrderEventSink(ObjectMapper objectMapper,
+                              @Value("${order.outbox.file.path:outbox/order-events.ndjson}") String path) throws IOException {
+        this.objectMapper = objectMapper;
+        Path file = Paths.get(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<OrderLifecycleEvent> events) {
+        try {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(events.size() * 160);
+            for (OrderLifecycleEvent event : events) {
+                objectMapper.writeValue(batch, event);
+                batch.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing order events failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+}
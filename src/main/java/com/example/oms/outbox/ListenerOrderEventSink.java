@@ -0,0 +1,28 @@
+package com.example.oms.outbox;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sink: hands every event to the application's {@code @EventListener(OrderLifecycleEvent.class)}
+ * methods on the relay thread. A listener that throws fails the batch, which is then redelivered.
+ */
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "listener", matchIfMissing = true)
+public class ListenerOrderEventSink implements OrderEventSink {
+
+    private final ApplicationEventPublisher publisher;
+
+    public ListenerOrderEventSink(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void publish(List<OrderLifecycleEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.oms.outbox;
+
+import com.example.oms.model.OrderLifecycleEvent;
+
+import java.util.List;
+
+/**
+ * Where {@link OrderOutboxRelay} delivers order lifecycle events. A batch counts as delivered once
+ * {@link #publish} returns; if it throws, the whole batch stays in the outbox and is offered again on
+ * the next poll, so sinks see every event at least once and possibly more than once.
+ * <p>
+ * {@code order.outbox.sink} picks one of the built-in sinks ({@code listener} or {@code file}); any
+ * other value leaves the choice to an {@code OrderEventSink} bean defined elsewhere, e.g. one that
+ * forwards to a message broker.
+ */
+public interface OrderEventSink {
+
+    /**
+     * @param events Oldest first
+     */
+    void publish(List<OrderLifecycleEvent> events);
+}
@@ -0,0 +1,130 @@
+package com.example.oms.outbox;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Drains the order outbox into the configured {@link OrderEventSink}. Each batch is locked with
+ * SKIP LOCKED, published and marked delivered in one transaction, so relays on several nodes share the
+ * work without handing out the same event twice, and a batch whose publish fails is simply rolled back
+ * and offered again on the next poll. Delivered events are kept for {@code order.outbox.retention-ms}
+ * and then purged.
+ */
+@Component
+@ConditionalOnProperty(name = "order.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderEventSink sink;
+    private final TransactionOperations transactionOperations;
+    private final Clock clock;
+    private final int batchSize;
+    private final Duration retention;
+    private final DistributionSummary batchSizes;
+    private final Timer deliveryLag;
+    private final Counter failures;
+
+    @Autowired
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            OrderEventSink sink,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.outbox.batch-size:500}") int batchSize,
+                            @Value("${order.outbox.retention-ms:86400000}") long retentionMs) {
+        this(outboxRepository, sink, new TransactionTemplate(transactionManager), Clock.systemUTC(),
+                meterRegistry, batchSize, Duration.ofMillis(retentionMs));
+    }
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            OrderEventSink sink,
+                            TransactionOperations transactionOperations,
+                            Clock clock,
+                            MeterRegistry meterRegistry,
+                            int batchSize,
+                            Duration retention) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("order.outbox.batch-size must be positive");
+        }
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionOperations = transactionOperations;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.batchSizes = DistributionSummary.builder("order.outbox.batch.size")
+                .description("Events delivered per relayed batch")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("order.outbox.delivery.lag")
+                .description("Time from an order change until its event was delivered to the sink")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failures = Counter.builder("order.outbox.delivery.failures")
+                .description("Batches rolled back because the sink failed; they are redelivered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delivers batches until the outbox is drained or the sink fails
+     * @return the number of events delivered
+     */
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public int relay() {
+        int delivered = 0;
+        int batch;
+        do {
+            try {
+                batch = transactionOperations.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Delivering order events failed, the batch stays in the outbox: {}", e.toString());
+                break;
+            }
+            delivered += batch;
+        } while (batch == batchSize);
+        return delivered;
+    }
+
+    private int relayBatch() {
+        List<OrderLifecycleEvent> events = outboxRepository.lockUndelivered(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        sink.publish(events);
+        Instant now = clock.instant();
+        outboxRepository.markDelivered(events.stream().map(OrderLifecycleEvent::getId).toList(), now);
+        batchSizes.record(events.size());
+        for (OrderLifecycleEvent event : events) {
+            deliveryLag.record(Duration.between(event.getOccurredAt(), now));
+        }
+        return events.size();
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.cleanup-interval-ms:3600000}")
+    public void purgeDelivered() {
+        int removed = outboxRepository.deleteDeliveredBefore(clock.instant().minus(retention));
+        if (removed > 0) {
+            log.info("Purged {} delivered order events", removed);
+        }
+    }
+}
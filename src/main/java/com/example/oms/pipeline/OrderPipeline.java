@@ -0,0 +1,155 @@
+package com.example.oms.pipeline;
+
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.OrderRepository;
+import com.example.oms.service.OrderChangeRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Event-driven processing of newly created orders in two stages: intake only decouples callers from the
+ * processing workers, and processing moves the orders to PROCESSING and records their end-to-end latency.
+ * Each stage has its own bounded queue and worker pool and works on micro-batches, so a new order moves to
+ * PROCESSING within milliseconds instead of waiting for the next scheduler run. Orders that cannot be
+ * queued (pipeline saturated or shut down) stay PENDING and are picked up by the recovery sweep in
+ * {@link com.example.oms.service.OrderProcessingScheduler}.
+ */
+@Component
+@ConditionalOnProperty(name = "order.pipeline.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPipeline.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderChangeRecorder changeRecorder;
+    private final TransactionOperations transactionOperations;
+    private final List<PipelineStage> stages = new ArrayList<>();
+    private final PipelineStage intake;
+    private final Counter rejected;
+    private final Timer endToEnd;
+
+    @Autowired
+    public OrderPipeline(OrderRepository orderRepository,
+                         OrderChangeRecorder changeRecorder,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${order.pipeline.queue-capacity:10000}") int queueCapacity,
+                         @Value("${order.pipeline.batch-size:100}") int batchSize,
+                         @Value("${order.pipeline.workers.intake:1}") int intakeWorkers,
+                         @Value("${order.pipeline.workers.processing:2}") int processingWorkers) {
+        this(orderRepository, changeRecorder, new TransactionTemplate(transactionManager), meterRegistry,
+                queueCapacity, batchSize, intakeWorkers, processingWorkers);
+    }
+
+    public OrderPipeline(OrderRepository orderRepository,
+                         OrderChangeRecorder changeRecorder,
+                         TransactionOperations transactionOperations,
+                         MeterRegistry meterRegistry,
+                         int queueCapacity,
+                         int batchSize,
+                         int intakeWorkers,
+                         int processingWorkers) {
+        this.orderRepository = orderRepository;
+        this.changeRecorder = changeRecorder;
+        this.transactionOperations = transactionOperations;
+        this.rejected = Counter.builder("order.pipeline.rejected")
+                .description("Orders not accepted by the pipeline and left for the recovery sweep")
+                .register(meterRegistry);
+        this.endToEnd = Timer.builder("order.pipeline.latency")
+                .description("Time from submission until the order was processed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        // Built back to front so every stage knows where to forward its output
+        PipelineStage processing = stage("processing", queueCapacity, processingWorkers, batchSize,
+                this::process, null, meterRegistry);
+        this.intake = stage("intake", queueCapacity, intakeWorkers, batchSize,
+                this::validate, processing, meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stages.forEach(PipelineStage::start);
+        log.info("Order pipeline started with stages {}", stages.stream().map(PipelineStage::getName).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        stages.forEach(PipelineStage::stop);
+    }
+
+    /**
+     * Queues a newly created order for processing without blocking the caller.
+     * @return false if the intake queue is full; the order is then left to the recovery sweep
+     */
+    public boolean submit(UUID orderId) {
+        boolean accepted = intake.offer(new OrderTask(orderId, System.nanoTime()));
+        if (!accepted) {
+            rejected.increment();
+            log.warn("Order pipeline intake is full, order {} left for the recovery sweep", orderId);
+        }
+        return accepted;
+    }
+
+    private PipelineStage stage(String name, int capacity, int workers, int batchSize,
+                                Function<List<OrderTask>, List<OrderTask>> handler,
+                                PipelineStage next, MeterRegistry meterRegistry) {
+        PipelineStage stage = new PipelineStage(name, capacity, workers, batchSize, handler, next, meterRegistry);
+        stages.add(0, stage);
+        return stage;
+    }
+
+    // Submitting never waits; intake is what blocks when processing falls behind. Null and repeated ids
+    // are dropped on the way
+    private List<OrderTask> validate(List<OrderTask> batch) {
+        Set<UUID> seen = new HashSet<>();
+        List<OrderTask> valid = new ArrayList<>(batch.size());
+        for (OrderTask task : batch) {
+            if (task.getOrderId() != null && seen.add(task.getOrderId())) {
+                valid.add(task);
+            }
+        }
+        return valid;
+    }
+
+    // One set-based update per batch, committed with its outbox events and history; orders cancelled in the
+    // meantime are no longer PENDING and are skipped
+    private List<OrderTask> process(List<OrderTask> batch) {
+        List<UUID> ids = batch.stream().map(OrderTask::getOrderId).toList();
+        Set<UUID> moved = new HashSet<>(transactionOperations.execute(status -> {
+            List<UUID> claimed = orderRepository.claimBatch(ids, OrderStatus.PENDING, OrderStatus.PROCESSING);
+            changeRecorder.statusChanged(claimed, OrderStatus.PROCESSING, Instant.now(), null);
+            return claimed;
+        }));
+        log.debug("Order pipeline moved {} of {} orders to PROCESSING", moved.size(), ids.size());
+        long now = System.nanoTime();
+        for (OrderTask task : batch) {
+            // Skipped orders were not processed here, so they do not count towards the latency
+            if (moved.contains(task.getOrderId())) {
+                endToEnd.record(now - task.getSubmittedNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.oms.pipeline;
+
+import java.util.UUID;
+
+/**
+ * Unit of work flowing through the {@link OrderPipeline}.
+ * A task is owned by exactly one stage at a time; the queues hand it over between worker threads.
+ */
+public class OrderTask {
+    private final UUID orderId;
+    private final long submittedNanos;
+    private long enqueuedNanos;
+
+    public OrderTask(UUID orderId, long submittedNanos) {
+        this.orderId = orderId;
+        this.submittedNanos = submittedNanos;
+        this.enqueuedNanos = submittedNanos;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+    }
+}
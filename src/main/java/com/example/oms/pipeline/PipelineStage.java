@@ -0,0 +1,143 @@
+package com.example.oms.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * One stage of the {@link OrderPipeline}: a bounded queue drained in micro-batches by a fixed pool of workers.
+ * The handler returns the tasks to forward to the next stage; forwarding blocks when the next queue is full,
+ * so a slow stage pushes back on the ones before it.
+ */
+class PipelineStage {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final String name;
+    private final BlockingQueue<OrderTask> queue;
+    private final int workers;
+    private final int batchSize;
+    private final Function<List<OrderTask>, List<OrderTask>> handler;
+    private final PipelineStage next;
+    private final Timer latency;
+    private final DistributionSummary batchSizes;
+    private final Counter failures;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    PipelineStage(String name, int capacity, int workers, int batchSize,
+                  Function<List<OrderTask>, List<OrderTask>> handler, PipelineStage next,
+                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.next = next;
+        Gauge.builder("order.pipeline.queue.depth", queue, BlockingQueue::size)
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.latency = Timer.builder("order.pipeline.stage.latency")
+                .description("Time from entering the stage queue until the stage finished with the task")
+                .tag("stage", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("order.pipeline.batch.size")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.failures = Counter.builder("order.pipeline.failures")
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-pipeline-" + name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Non-blocking hand-off used at the pipeline entry.
+     * @return false when the queue is full
+     */
+    boolean offer(OrderTask task) {
+        task.setEnqueuedNanos(System.nanoTime());
+        return queue.offer(task);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private void work() {
+        List<OrderTask> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                OrderTask first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<OrderTask> batch) throws InterruptedException {
+        batchSizes.record(batch.size());
+        List<OrderTask> forward;
+        try {
+            forward = handler.apply(batch);
+        } catch (RuntimeException e) {
+            // Orders stay PENDING and are picked up by the recovery sweep
+            failures.increment(batch.size());
+            log.error("Pipeline stage {} failed for a batch of {} orders", name, batch.size(), e);
+            return;
+        }
+        long now = System.nanoTime();
+        for (OrderTask task : batch) {
+            latency.record(now - task.getEnqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (next != null) {
+            for (OrderTask task : forward) {
+                task.setEnqueuedNanos(System.nanoTime());
+                next.queue.put(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache of single orders by id in front of another {@link OrderRepository}. Entries are
+ * bounded by count (W-TinyLFU admission, so a burst of one-off reads does not flush the hot orders
+ * being polled) and expire after a TTL, which also bounds staleness from writes made by other nodes.
+ * Writes through this repository update or invalidate the affected entries. Listings are not cached.
+ */
+public class CachingOrderRepository implements OrderRepository {
+
+    static final String CACHE_NAME = "orders";
+
+    private final OrderRepository delegate;
+    private final Cache<UUID, Order> cache;
+    private final Timer loadTimer;
+
+    public CachingOrderRepository(OrderRepository delegate, long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.loadTimer = Timer.builder("order.cache.load")
+                .description("Time to load an order missing from the cache")
+                .register(meterRegistry);
+        Gauge.builder("order.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    OrderRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Optional<Order> findById(UUID id) {
+        // Cached entries are never handed out, callers may mutate what they get back
+        Order cached = cache.get(id, key -> loadTimer.record(() -> delegate.findById(key).orElse(null)));
+        return Optional.ofNullable(cached).map(InMemoryOrderRepository::copyOf);
+    }
+
+    @Override
+    public Optional<Order> findByIdForUpdate(UUID id) {
+        // Always read through: the lock has to be taken on the row itself
+        return delegate.findByIdForUpdate(id);
+    }
+
+    @Override
+    public Order save(Order order) {
+        try {
+            Order saved = delegate.save(order);
+            cacheWritten(List.of(saved));
+            return saved;
+        } catch (RuntimeException e) {
+            // e.g. a version conflict: the cached copy may be the stale one
+            evict(List.of(order.getId()));
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Order> saveAll(List<Order> orders) {
+        List<Order> saved = delegate.saveAll(orders);
+        cacheWritten(saved);
+        return saved;
+    }
+
+    @Override
+    public List<Order> insertAll(List<Order> orders) {
+        List<Order> inserted = delegate.insertAll(orders);
+        cacheWritten(inserted);
+        return inserted;
+    }
+
+    @Override
+    public void delete(Order order) {
+        delegate.delete(order);
+        if (order != null && order.getId() != null) {
+            evict(List.of(order.getId()));
+        }
+    }
+
+    @Override
+    public List<UUID> claimBatch(OrderStatus from, OrderStatus to, int batchSize) {
+        List<UUID> claimed = delegate.claimBatch(from, to, batchSize);
+        evict(claimed);
+        return claimed;
+    }
+
+    @Override
+    public List<UUID> claimBatch(Collection<UUID> ids, OrderStatus from, OrderStatus to) {
+        try {
+            return delegate.claimBatch(ids, from, to);
+        } finally {
+            evict(ids);
+        }
+    }
+
+    @Override
+    public boolean updateStatus(UUID id, Set<OrderStatus> expected, OrderStatus target, Instant updatedAt,
+                                String updatedBy) {
+        try {
+            return delegate.updateStatus(id, expected, target, updatedAt, updatedBy);
+        } finally {
+            evict(List.of(id));
+        }
+    }
+
+    // Outside a transaction the write is committed and can be cached as is; inside one it may
+    // still roll back, so it is only evicted
+    private void cacheWritten(List<Order> orders) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(orders.stream().map(Order::getId).toList());
+        } else {
+            orders.forEach(order -> cache.put(order.getId(), InMemoryOrderRepository.copyOf(order)));
+        }
+    }
+
+    // Evicts now and again once the surrounding transaction has completed: until then a concurrent
+    // reader can reload and cache the previously committed state, and a read inside the
+    // transaction can cache state that is then rolled back
+    private void evict(Collection<UUID> ids) {
+        cache.invalidateAll(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(ids);
+                }
+            });
+        }
+    }
+
+    @Override
+    public Page<Order> findAll(Pageable pageable) {
+        return delegate.findAll(pageable);
+    }
+
+    @Override
+    public Page<Order> findByStatus(OrderStatus status, Pageable pageable) {
+        return delegate.findByStatus(status, pageable);
+    }
+
+    @Override
+    public Slice<Order> findSlice(OrderStatus status, Pageable pageable) {
+        return delegate.findSlice(status, pageable);
+    }
+
+    @Override
+    public long count(OrderStatus status) {
+        return delegate.count(status);
+    }
+
+    @Override
+    public List<Order> findPageAfter(OrderStatus status, OrderCursor after, int limit) {
+        return delegate.findPageAfter(status, after, limit);
+    }
+
+    @Override
+    public List<Order> findCustomerPageAfter(UUID customerId, OrderCursor after, int limit) {
+        return delegate.findCustomerPageAfter(customerId, after, limit);
+    }
+
+    @Override
+    public void forEachOrder(OrderStatus status, Instant from, Instant to, Consumer<Order> action) {
+        delegate.forEachOrder(status, from, to, action);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.oms.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable mapping from client idempotency keys to the orders they created.
+ */
+public interface IdempotencyKeyRepository {
+
+    /**
+     * @return the order created for {@code key}, unless the key was registered before {@code notBefore}
+     */
+    Optional<UUID> findOrderId(String key, Instant notBefore);
+
+    /**
+     * Records {@code key} for {@code orderId} in the caller's transaction, replacing a registration
+     * older than {@code expiredBefore}.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already registered
+     */
+    void register(String key, UUID orderId, Instant createdAt, Instant expiredBefore);
+
+    /**
+     * @return the number of keys removed
+     */
+    int deleteCreatedBefore(Instant cutoff);
+}
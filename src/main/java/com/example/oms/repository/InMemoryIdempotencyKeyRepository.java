@@ -0,0 +1,55 @@
+package com.example.oms.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@org.springframework.stereotype.Repository
+@org.springframework.boot.autoconfigure.condition.ConditionalOnProperty(
+        name = "repository.type",
+        havingValue = "memory"
+)
+public class InMemoryIdempotencyKeyRepository implements IdempotencyKeyRepository {
+
+    private final ConcurrentMap<String, Registration> keys = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<UUID> findOrderId(String key, Instant notBefore) {
+        Registration registration = keys.get(key);
+        if (registration == null || registration.createdAt.isBefore(notBefore)) {
+            return Optional.empty();
+        }
+        return Optional.of(registration.orderId);
+    }
+
+    @Override
+    public void register(String key, UUID orderId, Instant createdAt, Instant expiredBefore) {
+        Registration added = new Registration(orderId, createdAt);
+        Registration winner = keys.compute(key, (k, current) ->
+                current == null || current.createdAt.isBefore(expiredBefore) ? added : current);
+        if (winner != added) {
+            throw new DuplicateKeyException("Idempotency key already registered: " + key);
+        }
+    }
+
+    @Override
+    public int deleteCreatedBefore(Instant cutoff) {
+        int before = keys.size();
+        keys.values().removeIf(registration -> registration.createdAt.isBefore(cutoff));
+        return before - keys.size();
+    }
+
+    private static final class Registration {
+        private final UUID orderId;
+        private final Instant createdAt;
+
+        private Registration(UUID orderId, Instant createdAt) {
+            this.orderId = orderId;
+            this.createdAt = createdAt;
+        }
+    }
+}
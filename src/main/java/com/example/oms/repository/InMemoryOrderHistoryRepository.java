@@ -0,0 +1,85 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderSnapshot;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@org.springframework.stereotype.Repository
+@org.springframework.boot.autoconfigure.condition.ConditionalOnProperty(
+        name = "repository.type",
+        havingValue = "memory"
+)
+public class InMemoryOrderHistoryRepository implements OrderHistoryRepository {
+
+    // Per order, keyed by sequence, like the (order_id, sequence_number) primary keys of the tables
+    private final Map<UUID, NavigableMap<Long, OrderEvent>> events = new HashMap<>();
+    private final Map<UUID, NavigableMap<Long, OrderSnapshot>> snapshots = new HashMap<>();
+
+    @Override
+    public synchronized Map<UUID, Long> lastSequences(Collection<UUID> orderIds) {
+        Map<UUID, Long> last = new HashMap<>();
+        for (UUID orderId : orderIds) {
+            NavigableMap<Long, OrderEvent> history = events.get(orderId);
+            if (history != null && !history.isEmpty()) {
+                last.put(orderId, history.lastKey());
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public synchronized void append(List<OrderEvent> batch) {
+        for (OrderEvent event : batch) {
+            NavigableMap<Long, OrderEvent> history = events.get(event.getOrderId());
+            if (history != null && history.containsKey(event.getSequence())) {
+                throw new DuplicateKeyException("Order " + event.getOrderId() + " already has event "
+                        + event.getSequence());
+            }
+        }
+        batch.forEach(event -> events.computeIfAbsent(event.getOrderId(), id -> new TreeMap<>())
+                .put(event.getSequence(), event));
+    }
+
+    // Nothing else serializes writers of an order here, so appends are numbered under this store's lock
+    @Override
+    public synchronized void numberAndAppend(Runnable numberAndAppend) {
+        numberAndAppend.run();
+    }
+
+    @Override
+    public synchronized void saveSnapshot(UUID orderId, OrderSnapshot snapshot) {
+        snapshots.computeIfAbsent(orderId, id -> new TreeMap<>()).put(snapshot.getSequence(), snapshot);
+    }
+
+    @Override
+    public synchronized Optional<OrderSnapshot> findLatestSnapshot(UUID orderId, @Nullable Instant at) {
+        NavigableMap<Long, OrderSnapshot> taken = snapshots.getOrDefault(orderId, new TreeMap<>());
+        return taken.descendingMap().values().stream()
+                .filter(snapshot -> at == null || !snapshot.getOccurredAt().isAfter(at))
+                .findFirst();
+    }
+
+    @Override
+    public synchronized List<OrderEvent> findEvents(UUID orderId, long afterSequence, @Nullable Instant at) {
+        NavigableMap<Long, OrderEvent> history = events.getOrDefault(orderId, new TreeMap<>());
+        List<OrderEvent> found = new ArrayList<>();
+        for (OrderEvent event : history.tailMap(afterSequence, false).values()) {
+            if (at == null || !event.getOccurredAt().isAfter(at)) {
+                found.add(event);
+            }
+        }
+        return found;
+    }
+}
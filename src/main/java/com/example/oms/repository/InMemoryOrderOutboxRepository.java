@@ -0,0 +1,67 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.OrderLifecycleEvent;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@org.springframework.stereotype.Repository
+@org.springframework.boot.autoconfigure.condition.ConditionalOnProperty(
+        name = "repository.type",
+        havingValue = "memory"
+)
+public class InMemoryOrderOutboxRepository implements OrderOutboxRepository {
+
+    // Insertion order is recording order; there are no transactions, so a lock is just the monitor
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void append(List<OrderLifecycleEvent> events) {
+        events.forEach(event -> entries.put(event.getId(), new Entry(event)));
+    }
+
+    @Override
+    public synchronized List<OrderLifecycleEvent> lockUndelivered(int limit) {
+        List<OrderLifecycleEvent> undelivered = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries.values()) {
+            if (undelivered.size() == limit) {
+                break;
+            }
+            if (entry.deliveredAt == null) {
+                undelivered.add(entry.event);
+            }
+        }
+        return undelivered;
+    }
+
+    @Override
+    public synchronized void markDelivered(Collection<UUID> ids, Instant deliveredAt) {
+        for (UUID id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                entry.deliveredAt = deliveredAt;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int deleteDeliveredBefore(Instant cutoff) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.deliveredAt != null && entry.deliveredAt.isBefore(cutoff));
+        return before - entries.size();
+    }
+
+    private static final class Entry {
+        private final OrderLifecycleEvent event;
+        private Instant deliveredAt;
+
+        private Entry(OrderLifecycleEvent event) {
+            this.event = event;
+        }
+    }
+}
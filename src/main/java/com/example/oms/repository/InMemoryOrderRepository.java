@@ -1,16 +1,27 @@
 package com.example.oms.repository;
 
+import com.example.oms.exception.OrderVersionConflictException;
 import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Repository
@@ -20,79 +31,380 @@ import java.util.stream.Collectors;
 )
 public class InMemoryOrderRepository implements OrderRepository {
 
+    // Lowest id in unsigned order, for range bounds that take every order created at an instant
+    private static final UUID MIN_ID = new UUID(0, 0);
+
     private final ConcurrentMap<UUID, Order> store = new ConcurrentHashMap<>();
 
+    // Secondary indexes of (createdAt, id) keys in listing order: one over all orders, one per status
+    // and one per customer. They are maintained inside the store's compute call for the order, so a
+    // page walks its index from the cursor and reads only the orders it returns, instead of sorting
+    // the whole store. Readers look every key up in the store and skip keys that no longer match it,
+    // as an entry can briefly outlive a concurrent delete or change of its order.
+    private final NavigableSet<OrderCursor> byCreatedAt = new ConcurrentSkipListSet<>(OrderCursor.KEYS_NEWEST_FIRST);
+    private final Map<OrderStatus, NavigableSet<OrderCursor>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final ConcurrentMap<UUID, NavigableSet<OrderCursor>> byCustomer = new ConcurrentHashMap<>();
+    // Skip lists count by walking, so per-status counts are kept alongside
+    private final Map<OrderStatus, LongAdder> countsByStatus = new EnumMap<>(OrderStatus.class);
+
+    public InMemoryOrderRepository() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>(OrderCursor.KEYS_NEWEST_FIRST));
+            countsByStatus.put(status, new LongAdder());
+        }
+    }
+
     @Override
     public Order save(Order order) {
-        // Create a defensive copy to store
-        // todo 
-        Order copy = copyOf(order);
-        store.put(copy.getId(), copy);
-        return copyOf(copy);
+        // Create a defensive copy to store; compute makes the version check and the write atomic
+        Order saved = store.compute(order.getId(), (id, current) -> {
+            if (current != null && !Objects.equals(current.getVersion(), order.getVersion())) {
+                throw new OrderVersionConflictException(id, order.getVersion());
+            }
+            Order copy = copyOf(order);
+            copy.setVersion(current == null ? 0L : current.getVersion() + 1);
+            if (current == null) {
+                index(copy);
+            } else {
+                reindex(current, copy);
+            }
+            return copy;
+        });
+        return copyOf(saved);
+    }
+
+    @Override
+    public List<Order> insertAll(List<Order> orders) {
+        // Ids are assigned upstream, by OrderService from order.id.strategy or by the import
+        if (orders.stream().anyMatch(order -> order.getId() == null)) {
+            throw new InvalidDataAccessApiUsageException("Order id must be assigned before the order is inserted");
+        }
+        List<Order> inserted = new ArrayList<>(orders.size());
+        try {
+            for (Order order : orders) {
+                Order copy = copyOf(order);
+                copy.setVersion(0L);
+                store.compute(copy.getId(), (id, current) -> {
+                    if (current != null) {
+                        throw new DuplicateKeyException("Order " + id + " already exists");
+                    }
+                    index(copy);
+                    return copy;
+                });
+                inserted.add(copy);
+            }
+        } catch (DuplicateKeyException e) {
+            // All or nothing, like a rolled-back batch: the orders this call already stored are removed
+            for (Order copy : inserted) {
+                store.computeIfPresent(copy.getId(), (id, current) -> {
+                    if (current != copy) {
+                        return current;
+                    }
+                    unindex(current);
+                    return null;
+                });
+            }
+            throw e;
+        }
+        return inserted.stream().map(InMemoryOrderRepository::copyOf).collect(Collectors.toList());
     }
 
     @Override
     public Optional<Order> findById(UUID id) {
         Order order = store.get(id);
-        return Optional.ofNullable(order).map(this::copyOf);
+        return Optional.ofNullable(order).map(InMemoryOrderRepository::copyOf);
+    }
+
+    @Override
+    public Optional<Order> findByIdForUpdate(UUID id) {
+        // There are no row locks here; save's version check still rejects a concurrent writer
+        return findById(id);
     }
 
     @Override
     public Page<Order> findAll(Pageable pageable) {
-        List<Order> allOrders = store.values().stream()
-                .map(this::copyOf)
-                .sorted(createSorter(pageable.getSort()))
-                .collect(Collectors.toList());
-        
-        return paginateList(allOrders, pageable);
+        return page(null, pageable);
     }
 
     @Override
     public void delete(Order order) {
-        store.remove(order.getId());
+        store.computeIfPresent(order.getId(), (id, current) -> {
+            unindex(current);
+            return null;
+        });
     }
 
     @Override
     public Page<Order> findByStatus(OrderStatus status, Pageable pageable) {
-        List<Order> filteredOrders = store.values().stream()
-                .filter(o -> o.getStatus() == status)
-                .map(this::copyOf)
-                .sorted(createSorter(pageable.getSort()))
-                .collect(Collectors.toList());
-                
-        return paginateList(filteredOrders, pageable);
+        return page(status, pageable);
     }
     
+    @Override
+    public Slice<Order> findSlice(OrderStatus status, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(window(status, pageable.getSort(), 0, Integer.MAX_VALUE), pageable, false);
+        }
+        // One order past the page tells whether there is a next one, without counting
+        List<Order> content = window(status, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long count(OrderStatus status) {
+        return status == null ? store.size() : countsByStatus.get(status).sum();
+    }
+
+    @Override
+    public List<Order> findPageAfter(OrderStatus status, OrderCursor after, int limit) {
+        NavigableSet<OrderCursor> keys = status == null ? byCreatedAt : byStatus.get(status);
+        return collect(after == null ? keys : keys.tailSet(after, false), status, null, 0, limit);
+    }
+
+    @Override
+    public List<Order> findCustomerPageAfter(UUID customerId, OrderCursor after, int limit) {
+        NavigableSet<OrderCursor> keys = byCustomer.get(customerId);
+        if (keys == null) {
+            return new ArrayList<>();
+        }
+        return collect(after == null ? keys : keys.tailSet(after, false), null, customerId, 0, limit);
+    }
+
+    @Override
+    public void forEachOrder(OrderStatus status, Instant from, Instant to, Consumer<Order> action) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return;
+        }
+        NavigableSet<OrderCursor> oldestFirst = (status == null ? byCreatedAt : byStatus.get(status)).descendingSet();
+        if (from != null) {
+            oldestFirst = oldestFirst.tailSet(new OrderCursor(from, MIN_ID), true);
+        }
+        if (to != null) {
+            oldestFirst = oldestFirst.headSet(new OrderCursor(to, MIN_ID), false);
+        }
+        for (OrderCursor key : oldestFirst) {
+            Order order = lookup(key, status, null);
+            if (order != null) {
+                action.accept(copyOf(order));
+            }
+        }
+    }
+
+    @Override
+    public List<UUID> claimBatch(OrderStatus from, OrderStatus to, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        List<UUID> claimed = new ArrayList<>();
+        if (from == to) {
+            return claimed;
+        }
+        // Oldest first, so orders waiting longest are claimed first
+        for (OrderCursor key : byStatus.get(from).descendingSet()) {
+            if (claimed.size() == batchSize) {
+                break;
+            }
+            if (moveIfInStatus(key.getId(), from, to)) {
+                claimed.add(key.getId());
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public List<UUID> claimBatch(Collection<UUID> ids, OrderStatus from, OrderStatus to) {
+        List<UUID> claimed = new ArrayList<>();
+        if (from == to) {
+            return claimed;
+        }
+        for (UUID id : ids) {
+            if (moveIfInStatus(id, from, to)) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean updateStatus(UUID id, Set<OrderStatus> expected, OrderStatus target, Instant updatedAt,
+                                String updatedBy) {
+        boolean[] updated = {false};
+        store.computeIfPresent(id, (key, current) -> {
+            if (!expected.contains(current.getStatus())) {
+                return current;
+            }
+            Order changed = copyOf(current);
+            changed.setStatus(target);
+            changed.setUpdatedAt(updatedAt);
+            if (updatedBy != null) {
+                changed.setUpdatedBy(updatedBy);
+            }
+            updated[0] = true;
+            return replace(current, changed);
+        });
+        return updated[0];
+    }
+
     @Deprecated
     @Override
     public List<Order> findAll() {
         return store.values().stream()
-                .map(this::copyOf)
+                .map(InMemoryOrderRepository::copyOf)
                 .collect(Collectors.toList());
     }
 
     @Deprecated
     @Override
     public List<Order> findByStatus(OrderStatus status) {
+        return collect(byStatus.get(status), status, null, 0, Integer.MAX_VALUE);
+    }
+    
+    // Compute keeps the check-and-set atomic per order
+    private boolean moveIfInStatus(UUID id, OrderStatus from, OrderStatus to) {
+        boolean[] moved = {false};
+        store.computeIfPresent(id, (key, current) -> {
+            if (current.getStatus() != from) {
+                return current;
+            }
+            Order changed = copyOf(current);
+            changed.setStatus(to);
+            // As the SQL repositories set updated_date in their bulk updates
+            changed.setUpdatedAt(Instant.now());
+            moved[0] = true;
+            return replace(current, changed);
+        });
+        return moved[0];
+    }
+
+    // Stored orders are never modified: a change stores a new copy, so readers always see a whole version
+    private Order replace(Order current, Order changed) {
+        changed.setVersion(current.getVersion() + 1);
+        reindex(current, changed);
+        return changed;
+    }
+
+    private Page<Order> page(@Nullable OrderStatus status, Pageable pageable) {
+        List<Order> content = pageable.isUnpaged()
+                ? window(status, pageable.getSort(), 0, Integer.MAX_VALUE)
+                : window(status, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, count(status));
+    }
+
+    /**
+     * Orders {@code offset} to {@code offset + limit} of the listing. Walks an index when the listing is
+     * by creation time, either way, or unsorted; other sorts have no index and sort the matching orders.
+     */
+    private List<Order> window(@Nullable OrderStatus status, Sort sort, long offset, int limit) {
+        NavigableSet<OrderCursor> keys = status == null ? byCreatedAt : byStatus.get(status);
+        Sort.Order only = sort.stream().count() == 1 ? sort.iterator().next() : null;
+        if (sort.isUnsorted() || (only != null && only.getProperty().equalsIgnoreCase("createdAt"))) {
+            return collect(only != null && only.isAscending() ? keys.descendingSet() : keys, status, null, offset,
+                    limit);
+        }
         return store.values().stream()
-                .filter(o -> o.getStatus() == status)
-                .map(this::copyOf)
+                .filter(o -> status == null || o.getStatus() == status)
+                .map(InMemoryOrderRepository::copyOf)
+                .sorted(createSorter(sort))
+                .skip(offset)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
-    
-    private Page<Order> paginateList(List<Order> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        
-        if (start > list.size()) {
-            return new PageImpl<>(Collections.emptyList(), pageable, list.size());
+
+    // Copies the orders behind the keys, in key order, skipping the first offset that still match
+    private List<Order> collect(Iterable<OrderCursor> keys, @Nullable OrderStatus status, @Nullable UUID customerId,
+                                long offset, int limit) {
+        List<Order> orders = new ArrayList<>();
+        long skip = offset;
+        for (OrderCursor key : keys) {
+            if (orders.size() >= limit) {
+                break;
+            }
+            Order order = lookup(key, status, customerId);
+            if (order == null) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                orders.add(copyOf(order));
+            }
         }
-        
-        return new PageImpl<>(
-            list.subList(start, end), 
-            pageable, 
-            list.size()
-        );
+        return orders;
+    }
+
+    @Nullable
+    private Order lookup(OrderCursor key, @Nullable OrderStatus status, @Nullable UUID customerId) {
+        Order order = store.get(key.getId());
+        if (order == null || !order.getCreatedAt().equals(key.getCreatedAt())
+                || (status != null && order.getStatus() != status)
+                || (customerId != null && !customerId.equals(order.getCustomerId()))) {
+            return null;
+        }
+        return order;
+    }
+
+    // The index methods below run inside the store's compute call for the order they touch, so changes
+    // to one order's entries never interleave. Like iterating the store itself, reading the indexes is
+    // weakly consistent: an order that changes status or creation time during a read may be missed by
+    // it, or seen under both keys.
+
+    private void index(Order order) {
+        OrderCursor key = OrderCursor.of(order);
+        byCreatedAt.add(key);
+        byStatus.get(order.getStatus()).add(key);
+        countsByStatus.get(order.getStatus()).increment();
+        indexCustomer(order.getCustomerId(), key);
+    }
+
+    private void unindex(Order order) {
+        OrderCursor key = OrderCursor.of(order);
+        byCreatedAt.remove(key);
+        byStatus.get(order.getStatus()).remove(key);
+        countsByStatus.get(order.getStatus()).decrement();
+        unindexCustomer(order.getCustomerId(), key);
+    }
+
+    private void reindex(Order before, Order after) {
+        OrderCursor oldKey = OrderCursor.of(before);
+        OrderCursor newKey = OrderCursor.of(after);
+        boolean moved = !oldKey.equals(newKey);
+        if (moved) {
+            byCreatedAt.add(newKey);
+            byCreatedAt.remove(oldKey);
+        }
+        if (moved || before.getStatus() != after.getStatus()) {
+            byStatus.get(after.getStatus()).add(newKey);
+            byStatus.get(before.getStatus()).remove(oldKey);
+            countsByStatus.get(after.getStatus()).increment();
+            countsByStatus.get(before.getStatus()).decrement();
+        }
+        if (moved || !Objects.equals(before.getCustomerId(), after.getCustomerId())) {
+            indexCustomer(after.getCustomerId(), newKey);
+            unindexCustomer(before.getCustomerId(), oldKey);
+        }
+    }
+
+    private void indexCustomer(@Nullable UUID customerId, OrderCursor key) {
+        if (customerId == null) {
+            return;
+        }
+        // Adding inside compute keeps an unindex that empties the set from dropping this key with it
+        byCustomer.compute(customerId, (id, keys) -> {
+            NavigableSet<OrderCursor> indexed = keys != null
+                    ? keys : new ConcurrentSkipListSet<>(OrderCursor.KEYS_NEWEST_FIRST);
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    private void unindexCustomer(@Nullable UUID customerId, OrderCursor key) {
+        if (customerId == null) {
+            return;
+        }
+        byCustomer.computeIfPresent(customerId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
     }
     
     private Comparator<Order> createSorter(Sort sort) {
@@ -128,9 +440,9 @@ public class InMemoryOrderRepository implements OrderRepository {
             .orElse((o1, o2) -> 0);
     }
 
-    private Order copyOf(Order order) {
+    static Order copyOf(Order order) {
         List<OrderItem> itemsCopy = new ArrayList<>(order.getItems());
-        return new Order(
+        Order copy = new Order(
             order.getId(), 
             order.getCustomerId(), 
             order.getCustomerName(),
@@ -142,6 +454,9 @@ public class InMemoryOrderRepository implements OrderRepository {
             order.getTotalAmount(),
             itemsCopy
         );
+        copy.setVersion(order.getVersion());
+        copy.setUpdatedBy(order.getUpdatedBy());
+        return copy;
     }
 }
 
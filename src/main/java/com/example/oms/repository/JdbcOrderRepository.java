@@ -0,0 +1,669 @@
+package com.example.oms.repository;
+
+import com.example.oms.datasource.ReadYourWritesTracker;
+import com.example.oms.exception.OrderVersionConflictException;
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.OrderItemEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link OrderRepository} over plain JDBC for the same schema as {@link MySqlOrderRepository}: rows are
+ * mapped straight to {@link Order} with no entity graph, persistence context or dirty checking in
+ * between. Every statement except the IN lists is a constant string, so the driver's prepared
+ * statement cache (cachePrepStmts/useServerPrepStmts) reuses it across calls.
+ */
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "jdbc")
+@Transactional(readOnly = true)
+public class JdbcOrderRepository implements OrderRepository {
+
+    static final String SELECT_ORDERS_WITH_ITEMS =
+            "SELECT o.id, o.customer_id, o.created_at, o.status, o.version, o.updated_date, o.updated_by, "
+                    + "i.id AS item_id, i.product_id, i.product_name, i.quantity, i.unit_price "
+                    + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id ";
+
+    private static final String FIND_BY_ID = SELECT_ORDERS_WITH_ITEMS + "WHERE o.id = ? ORDER BY i.id";
+    private static final String FIND_BY_ID_FOR_UPDATE = FIND_BY_ID + " FOR UPDATE";
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (id, customer_id, created_at, status, version, "
+                    + "created_date, created_by, updated_date, updated_by) VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    private static final String UPDATE_ORDER =
+            "UPDATE orders SET customer_id = ?, created_at = ?, status = ?, version = version + 1, "
+                    + "updated_date = ?, updated_by = ? WHERE id = ? AND version = ?";
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO order_items (id, order_id, product_id, product_name, quantity, unit_price, total_price, "
+                    + "created_date, created_by, updated_date, updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ITEMS =
+            "SELECT id, product_id, product_name, quantity, unit_price FROM order_items WHERE order_id = ?";
+
+    private static final String UPDATE_ITEM =
+            "UPDATE order_items SET product_id = ?, product_name = ?, quantity = ?, unit_price = ?, total_price = ?, "
+                    + "updated_date = ?, updated_by = ? WHERE id = ?";
+
+    private static final String DELETE_ITEM = "DELETE FROM order_items WHERE id = ?";
+    private static final String DELETE_ITEMS = "DELETE FROM order_items WHERE order_id = ?";
+    private static final String DELETE_ORDER = "DELETE FROM orders WHERE id = ?";
+
+    private static final String COUNT_ALL = "SELECT COUNT(*) FROM orders";
+    private static final String COUNT_BY_STATUS = "SELECT COUNT(*) FROM orders WHERE status = ?";
+
+    // Keyset pages of the newest-first listing, see JpaOrderRepository#findPageIdsAfter
+    private static final String FIRST_PAGE_IDS = "SELECT id FROM orders ORDER BY created_at DESC, id DESC LIMIT ?";
+    private static final String PAGE_IDS_AFTER =
+            "SELECT id FROM orders WHERE created_at < ? OR (created_at = ? AND id < ?) "
+                    + "ORDER BY created_at DESC, id DESC LIMIT ?";
+    private static final String FIRST_PAGE_IDS_BY_STATUS =
+            "SELECT id FROM orders WHERE status = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+    private static final String PAGE_IDS_BY_STATUS_AFTER =
+            "SELECT id FROM orders WHERE status = ? AND (created_at < ? OR (created_at = ? AND id < ?)) "
+                    + "ORDER BY created_at DESC, id DESC LIMIT ?";
+    private static final String FIRST_CUSTOMER_PAGE_IDS =
+            "SELECT id FROM orders WHERE customer_id = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+    private static final String CUSTOMER_PAGE_IDS_AFTER =
+            "SELECT id FROM orders WHERE customer_id = ? AND (created_at < ? OR (created_at = ? AND id < ?)) "
+                    + "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String LOCK_NEXT_IDS =
+            "SELECT id FROM orders WHERE status = ? ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE orders SET status = ?, updated_date = ?, updated_by = COALESCE(?, updated_by), "
+                    + "version = version + 1 WHERE id = ? AND status IN ";
+
+    // Hibernate's table-backed order_items_seq hands out (next_val - ALLOCATION_SIZE, next_val] and moves
+    // next_val up by ALLOCATION_SIZE; LAST_INSERT_ID(expr) reserves any number of such blocks in one statement
+    private static final String RESERVE_ITEM_IDS_MYSQL =
+            "UPDATE order_items_seq SET next_val = LAST_INSERT_ID(next_val + ?)";
+    private static final String RESERVED_ITEM_IDS_MYSQL = "SELECT LAST_INSERT_ID()";
+    private static final String NEXT_ITEM_ID_BLOCK = "SELECT NEXT VALUE FOR order_items_seq";
+
+    private static final RowMapper<UUID> ID = (rs, rowNum) -> uuid(rs.getObject(1));
+
+    // Rows of SELECT_ORDERS_WITH_ITEMS, one per item (or one with null item columns), folded into orders
+    private static final ResultSetExtractor<List<Order>> ORDERS_WITH_ITEMS = rs -> {
+        Map<UUID, Order> orders = new LinkedHashMap<>();
+        Map<UUID, List<OrderItem>> items = new LinkedHashMap<>();
+        while (rs.next()) {
+            UUID id = uuid(rs.getObject("id"));
+            if (!orders.containsKey(id)) {
+                Order order = new Order(id, uuid(rs.getObject("customer_id")), instant(rs, "created_at"),
+                        OrderStatus.valueOf(rs.getString("status")), null);
+                order.setVersion(rs.getLong("version"));
+                order.setUpdatedAt(instant(rs, "updated_date"));
+                order.setUpdatedBy(rs.getString("updated_by"));
+                orders.put(id, order);
+                items.put(id, new ArrayList<>());
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                items.get(id).add(item(itemId, rs.getString("product_id"), rs.getString("product_name"),
+                        rs.getInt("quantity"), rs.getBigDecimal("unit_price")));
+            }
+        }
+        // Built with the order's items so the total amount is computed as for the other repositories
+        return orders.values().stream()
+                .map(order -> withItems(order, order.getVersion(), items.get(order.getId())))
+                .collect(Collectors.toList());
+    };
+
+    // Properties accepted in a Pageable's Sort, as for the JPA repository
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "customerId", "customer_id",
+            "createdAt", "created_at",
+            "status", "status"
+    );
+
+    private final JdbcTemplate jdbc;
+    private final AuditorAware<String> auditor;
+    private final ReadYourWritesTracker recentWrites;
+    private final OrderExportQuery exportQuery;
+    private volatile Boolean mySql;
+
+    public JdbcOrderRepository(DataSource dataSource,
+                               @Qualifier("auditorProvider") AuditorAware<String> auditor,
+                               ReadYourWritesTracker recentWrites) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.auditor = auditor;
+        this.recentWrites = recentWrites;
+        this.exportQuery = new OrderExportQuery(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public Order save(Order order) {
+        if (order.getVersion() == null) {
+            return insertAll(List.of(order)).get(0);
+        }
+        Instant now = Instant.now();
+        String user = currentAuditor();
+        int updated = jdbc.update(UPDATE_ORDER,
+                bytes(order.getCustomerId()), timestamp(order.getCreatedAt()), order.getStatus().name(),
+                timestamp(now), user, bytes(order.getId()), order.getVersion());
+        if (updated == 0) {
+            throw new OrderVersionConflictException(order.getId(), order.getVersion());
+        }
+        Order saved = withStoredItems(order, order.getVersion() + 1, mergeItems(order, now, user));
+        saved.setUpdatedAt(now);
+        saved.setUpdatedBy(user);
+        recordWrite(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Order insert(Order order) {
+        // Overridden so the insert runs in a read-write transaction, not the class-level read-only one
+        return insertAll(List.of(order)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<Order> saveAll(List<Order> orders) {
+        if (orders.stream().anyMatch(order -> order.getVersion() != null)) {
+            return orders.stream().map(this::save).collect(Collectors.toList());
+        }
+        return insertAll(orders);
+    }
+
+    // New orders go out as one JDBC batch for the orders and one for all of their items
+    @Override
+    @Transactional
+    public List<Order> insertAll(List<Order> orders) {
+        Instant now = Instant.now();
+        String user = currentAuditor();
+        List<Order> prepared = orders.stream()
+                .map(order -> {
+                    // Ids are assigned upstream, by OrderService from order.id.strategy or by the import
+                    if (order.getId() == null) {
+                        throw new InvalidDataAccessApiUsageException(
+                                "Order id must be assigned before the order is inserted");
+                    }
+                    Order copy = InMemoryOrderRepository.copyOf(order);
+                    if (copy.getCreatedAt() == null) {
+                        copy.setCreatedAt(now);
+                    }
+                    if (copy.getStatus() == null) {
+                        copy.setStatus(OrderStatus.PENDING);
+                    }
+                    copy.setUpdatedAt(now);
+                    copy.setUpdatedBy(user);
+                    return copy;
+                })
+                .collect(Collectors.toList());
+        jdbc.batchUpdate(INSERT_ORDER, prepared.stream()
+                .map(order -> new Object[]{
+                        bytes(order.getId()), bytes(order.getCustomerId()), timestamp(order.getCreatedAt()),
+                        order.getStatus().name(), timestamp(now), user, timestamp(now), user})
+                .collect(Collectors.toList()));
+        List<long[]> itemIds = insertItems(prepared, now, user);
+        List<Order> saved = new ArrayList<>(prepared.size());
+        for (int i = 0; i < prepared.size(); i++) {
+            Order order = withStoredItems(prepared.get(i), 0L, itemIds.get(i));
+            recordWrite(order);
+            saved.add(order);
+        }
+        return saved;
+    }
+
+    /**
+     * Matches the order's items to its stored rows on the item id and writes only the difference: new
+     * items are inserted, changed ones updated and the rows of dropped items deleted, each as one batch.
+     * @return the row id of each of the order's items
+     */
+    private long[] mergeItems(Order order, Instant now, String user) {
+        Map<UUID, OrderItem> stored = new HashMap<>();
+        Map<UUID, Long> storedRowIds = new HashMap<>();
+        jdbc.query(SELECT_ITEMS, (ResultSet rs) -> {
+            OrderItem item = item(rs.getLong("id"), rs.getString("product_id"), rs.getString("product_name"),
+                    rs.getInt("quantity"), rs.getBigDecimal("unit_price"));
+            stored.put(item.getId(), item);
+            storedRowIds.put(item.getId(), rs.getLong("id"));
+        }, bytes(order.getId()));
+
+        List<OrderItem> items = order.getItems();
+        long[] rowIds = new long[items.size()];
+        List<OrderItem> added = new ArrayList<>();
+        List<Integer> addedAt = new ArrayList<>();
+        List<Object[]> changed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            OrderItem current = item.getId() == null ? null : stored.remove(item.getId());
+            if (current == null) {
+                added.add(item);
+                addedAt.add(i);
+                continue;
+            }
+            rowIds[i] = storedRowIds.get(item.getId());
+            if (!sameItem(current, item)) {
+                changed.add(new Object[]{item.getProductId(), item.getProductName(), item.getQuantity(),
+                        item.getUnitPrice(), totalPrice(item), timestamp(now), user, rowIds[i]});
+            }
+        }
+        if (!stored.isEmpty()) {
+            jdbc.batchUpdate(DELETE_ITEM, stored.keySet().stream()
+                    .map(id -> new Object[]{storedRowIds.get(id)})
+                    .collect(Collectors.toList()));
+        }
+        if (!changed.isEmpty()) {
+            jdbc.batchUpdate(UPDATE_ITEM, changed);
+        }
+        if (!added.isEmpty()) {
+            long[] addedRowIds = insertItems(List.of(withItems(order, 0L, added)), now, user).get(0);
+            for (int j = 0; j < addedRowIds.length; j++) {
+                rowIds[addedAt.get(j)] = addedRowIds[j];
+            }
+        }
+        return rowIds;
+    }
+
+    // Stored product names read back as "" when missing, and prices compare by value
+    private static boolean sameItem(OrderItem stored, OrderItem item) {
+        return Objects.equals(stored.getProductId(), item.getProductId())
+                && stored.getQuantity() == item.getQuantity()
+                && Objects.equals(stored.getProductName(), Objects.toString(item.getProductName(), ""))
+                && (stored.getUnitPrice() == null
+                        ? item.getUnitPrice() == null
+                        : item.getUnitPrice() != null && stored.getUnitPrice().compareTo(item.getUnitPrice()) == 0);
+    }
+
+    private static BigDecimal totalPrice(OrderItem item) {
+        return item.getUnitPrice() != null && item.getQuantity() > 0
+                ? item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()))
+                : null;
+    }
+
+    // Inserts the items of every order in one batch; returns the ids given to each order's items
+    private List<long[]> insertItems(List<Order> orders, Instant now, String user) {
+        int itemCount = orders.stream().mapToInt(order -> order.getItems().size()).sum();
+        long[] reserved = itemCount == 0 ? new long[0] : reserveItemIds(itemCount);
+        int next = 0;
+        List<long[]> ids = new ArrayList<>(orders.size());
+        List<Object[]> rows = new ArrayList<>(itemCount);
+        for (Order order : orders) {
+            long[] orderItemIds = new long[order.getItems().size()];
+            for (int i = 0; i < orderItemIds.length; i++) {
+                OrderItem item = order.getItems().get(i);
+                long id = reserved[next++];
+                orderItemIds[i] = id;
+                rows.add(new Object[]{
+                        id, bytes(order.getId()), item.getProductId(), item.getProductName(), item.getQuantity(),
+                        item.getUnitPrice(), totalPrice(item), timestamp(now), user, timestamp(now), user});
+            }
+            ids.add(orderItemIds);
+        }
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(INSERT_ITEM, rows);
+        }
+        return ids;
+    }
+
+    /**
+     * Reserves {@code count} item ids from order_items_seq in whole blocks of
+     * {@link OrderItemEntity#ALLOCATION_SIZE}, the same blocks Hibernate's pooled generator takes, so ids
+     * never collide with those handed out to the JPA repository. The rest of the last block is dropped.
+     */
+    private long[] reserveItemIds(int count) {
+        int blockSize = OrderItemEntity.ALLOCATION_SIZE;
+        int blocks = (count + blockSize - 1) / blockSize;
+        long[] ids = new long[count];
+        if (isMySql()) {
+            jdbc.update(RESERVE_ITEM_IDS_MYSQL, (long) blocks * blockSize);
+            long first = jdbc.queryForObject(RESERVED_ITEM_IDS_MYSQL, Long.class) - (long) (blocks + 1) * blockSize + 1;
+            for (int i = 0; i < count; i++) {
+                ids[i] = first + i;
+            }
+            return ids;
+        }
+        // Databases with real sequences: one block per statement
+        for (int i = 0; i < count; i++) {
+            if (i % blockSize == 0) {
+                ids[i] = nextItemIdBlock();
+            } else {
+                ids[i] = ids[i - 1] + 1;
+            }
+        }
+        return ids;
+    }
+
+    private long nextItemIdBlock() {
+        long hi = jdbc.queryForObject(NEXT_ITEM_ID_BLOCK, Long.class);
+        // A fresh sequence starts at 1; like Hibernate, take the following value as the top of the first block
+        if (hi < OrderItemEntity.ALLOCATION_SIZE) {
+            hi = jdbc.queryForObject(NEXT_ITEM_ID_BLOCK, Long.class);
+        }
+        return hi - OrderItemEntity.ALLOCATION_SIZE + 1;
+    }
+
+    private boolean isMySql() {
+        Boolean result = mySql;
+        if (result == null) {
+            String product = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase().contains("mysql");
+            mySql = result;
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void delete(Order order) {
+        if (order != null && order.getId() != null) {
+            jdbc.update(DELETE_ITEMS, bytes(order.getId()));
+            jdbc.update(DELETE_ORDER, bytes(order.getId()));
+            recentWrites.recordWrite(order.getId());
+        }
+    }
+
+    @Override
+    public Optional<Order> findById(UUID id) {
+        List<Order> found = recentWrites.read(id, () -> jdbc.query(FIND_BY_ID, ORDERS_WITH_ITEMS, bytes(id)));
+        return found.stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> findByIdForUpdate(UUID id) {
+        return jdbc.query(FIND_BY_ID_FOR_UPDATE, ORDERS_WITH_ITEMS, bytes(id)).stream().findFirst();
+    }
+
+    @Override
+    public Page<Order> findAll(Pageable pageable) {
+        return findPage(null, pageable);
+    }
+
+    @Override
+    public Page<Order> findByStatus(OrderStatus status, Pageable pageable) {
+        return findPage(status, pageable);
+    }
+
+    private Page<Order> findPage(OrderStatus status, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<Order> orders = loadInOrder(findIds(status, pageable.getSort(), -1, 0));
+            return new PageImpl<>(orders, pageable, orders.size());
+        }
+        List<UUID> ids = findIds(status, pageable.getSort(), pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(loadInOrder(ids), pageable, count(status));
+    }
+
+    @Override
+    public Slice<Order> findSlice(OrderStatus status, Pageable pageable) {
+        // One row past the page tells whether another page follows
+        List<UUID> ids = findIds(status, pageable.getSort(), pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        List<UUID> pageIds = hasNext ? ids.subList(0, pageable.getPageSize()) : ids;
+        return new SliceImpl<>(loadInOrder(pageIds), pageable, hasNext);
+    }
+
+    @Override
+    public long count(OrderStatus status) {
+        Long count = status == null
+                ? jdbc.queryForObject(COUNT_ALL, Long.class)
+                : jdbc.queryForObject(COUNT_BY_STATUS, Long.class, status.name());
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public List<Order> findPageAfter(OrderStatus status, OrderCursor after, int limit) {
+        List<UUID> ids;
+        if (status == null) {
+            ids = after == null
+                    ? jdbc.query(FIRST_PAGE_IDS, ID, limit)
+                    : jdbc.query(PAGE_IDS_AFTER, ID, timestamp(after.getCreatedAt()),
+                            timestamp(after.getCreatedAt()), bytes(after.getId()), limit);
+        } else {
+            ids = after == null
+                    ? jdbc.query(FIRST_PAGE_IDS_BY_STATUS, ID, status.name(), limit)
+                    : jdbc.query(PAGE_IDS_BY_STATUS_AFTER, ID, status.name(), timestamp(after.getCreatedAt()),
+                            timestamp(after.getCreatedAt()), bytes(after.getId()), limit);
+        }
+        return loadInOrder(ids);
+    }
+
+    @Override
+    public List<Order> findCustomerPageAfter(UUID customerId, OrderCursor after, int limit) {
+        return recentWrites.read(customerId, () -> loadInOrder(after == null
+                ? jdbc.query(FIRST_CUSTOMER_PAGE_IDS, ID, bytes(customerId), limit)
+                : jdbc.query(CUSTOMER_PAGE_IDS_AFTER, ID, bytes(customerId), timestamp(after.getCreatedAt()),
+                        timestamp(after.getCreatedAt()), bytes(after.getId()), limit)));
+    }
+
+    @Override
+    public void forEachOrder(OrderStatus status, Instant from, Instant to, Consumer<Order> action) {
+        exportQuery.forEach(status, from, to, action);
+    }
+
+    // First phase of an offset page: only ids, so LIMIT/OFFSET count orders rather than order x item rows
+    private List<UUID> findIds(OrderStatus status, Sort sort, int limit, long offset) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM orders");
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            sql.append(" WHERE status = ?");
+            args.add(status.name());
+        }
+        sql.append(orderBy(sort));
+        if (limit >= 0) {
+            sql.append(" LIMIT ? OFFSET ?");
+            args.add(limit);
+            args.add(offset);
+        }
+        return jdbc.query(sql.toString(), ID, args.toArray());
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> {
+                    String column = SORT_COLUMNS.get(order.getProperty());
+                    if (column == null) {
+                        throw new InvalidDataAccessApiUsageException("Cannot sort orders by " + order.getProperty());
+                    }
+                    return column + (order.isAscending() ? " ASC" : " DESC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    // Second phase of a page query: one IN query for the page's orders and items, in the ids' order
+    private List<Order> loadInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Order> byId = jdbc.query(SELECT_ORDERS_WITH_ITEMS + "WHERE o.id IN " + placeholders(ids.size())
+                        + " ORDER BY i.id", ORDERS_WITH_ITEMS, ids.stream().map(JdbcOrderRepository::bytes).toArray())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<UUID> claimBatch(OrderStatus from, OrderStatus to, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        return from == to ? List.of() : claim(from, to, batchSize);
+    }
+
+    @Override
+    @Transactional
+    public List<UUID> claimBatch(Collection<UUID> ids, OrderStatus from, OrderStatus to) {
+        if (ids.isEmpty() || from == to) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        ids.forEach(id -> args.add(bytes(id)));
+        args.add(from.name());
+        List<UUID> locked = jdbc.query("SELECT id FROM orders WHERE id IN " + placeholders(ids.size())
+                + " AND status = ? FOR UPDATE", ID, args.toArray());
+        if (!locked.isEmpty()) {
+            updateStatusByIds(locked, to);
+            locked.forEach(recentWrites::recordWrite);
+        }
+        return locked;
+    }
+
+    @Override
+    @Transactional
+    public boolean compareAndSetStatus(UUID id, Set<OrderStatus> expected, OrderStatus target) {
+        // Overridden so the update runs in a read-write transaction, not the class-level read-only one
+        return updateStatus(id, expected, target, Instant.now(), null);
+    }
+
+    @Override
+    @Transactional
+    public boolean updateStatus(UUID id, Set<OrderStatus> expected, OrderStatus target, Instant updatedAt,
+                                String updatedBy) {
+        if (expected.isEmpty()) {
+            return false;
+        }
+        List<Object> args = new ArrayList<>(expected.size() + 4);
+        args.add(target.name());
+        args.add(timestamp(updatedAt));
+        args.add(updatedBy);
+        args.add(bytes(id));
+        expected.forEach(status -> args.add(status.name()));
+        boolean updated = jdbc.update(UPDATE_STATUS + placeholders(expected.size()), args.toArray()) == 1;
+        if (updated) {
+            recentWrites.recordWrite(id);
+        }
+        return updated;
+    }
+
+    private List<UUID> claim(OrderStatus from, OrderStatus to, int limit) {
+        List<UUID> ids = jdbc.query(LOCK_NEXT_IDS, ID, from.name(), limit);
+        if (!ids.isEmpty()) {
+            updateStatusByIds(ids, to);
+            ids.forEach(recentWrites::recordWrite);
+        }
+        return ids;
+    }
+
+    // Rows already locked by this transaction, so no status condition is needed
+    private void updateStatusByIds(List<UUID> ids, OrderStatus to) {
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.add(to.name());
+        args.add(timestamp(Instant.now()));
+        ids.forEach(id -> args.add(bytes(id)));
+        jdbc.update("UPDATE orders SET status = ?, updated_date = ?, version = version + 1 WHERE id IN "
+                + placeholders(ids.size()), args.toArray());
+    }
+
+    private void recordWrite(Order order) {
+        recentWrites.recordWrite(order.getId());
+        recentWrites.recordWrite(order.getCustomerId());
+    }
+
+    private String currentAuditor() {
+        return auditor.getCurrentAuditor().orElse("system");
+    }
+
+    // The order as a later read returns it: the given version, and item ids derived from the row ids
+    private static Order withStoredItems(Order order, long version, long[] itemIds) {
+        List<OrderItem> items = new ArrayList<>(order.getItems().size());
+        for (int i = 0; i < order.getItems().size(); i++) {
+            OrderItem source = order.getItems().get(i);
+            items.add(item(itemIds[i], source.getProductId(), source.getProductName(), source.getQuantity(),
+                    source.getUnitPrice()));
+        }
+        return withItems(order, version, items);
+    }
+
+    static Order withItems(Order order, long version, List<OrderItem> items) {
+        Order result = new Order(order.getId(), order.getCustomerId(), order.getCreatedAt(), order.getStatus(), items);
+        result.setVersion(version);
+        result.setUpdatedAt(order.getUpdatedAt());
+        result.setUpdatedBy(order.getUpdatedBy());
+        return result;
+    }
+
+    static OrderItem item(long itemId, String productId, String productName, int quantity,
+                          BigDecimal unitPrice) {
+        OrderItem item = new OrderItem();
+        // Same derivation as MySqlOrderRepository, so item ids agree between the two implementations
+        item.setId(UUID.nameUUIDFromBytes(Long.toString(itemId).getBytes()));
+        item.setProductId(productId);
+        item.setProductName(productName != null ? productName : "");
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        return item;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    // Ids are BINARY(16), most significant half first
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID uuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((byte[]) value);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // Instants are stored as UTC wall-clock time, as Hibernate does
+    static OffsetDateTime timestamp(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    static Instant instant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.oms.repository;
+
+import com.example.oms.repository.jpa.IdempotencyKeyEntity;
+import com.example.oms.repository.jpa.JpaIdempotencyKeyRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+// Also backs repository.type=jdbc, which only replaces the order repository on the same database
+@org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("'${repository.type:mysql}' != 'memory'")
+@Transactional(readOnly = true)
+public class MySqlIdempotencyKeyRepository implements IdempotencyKeyRepository {
+
+    private final JpaIdempotencyKeyRepository jpaIdempotencyKeyRepository;
+
+    public MySqlIdempotencyKeyRepository(JpaIdempotencyKeyRepository jpaIdempotencyKeyRepository) {
+        this.jpaIdempotencyKeyRepository = jpaIdempotencyKeyRepository;
+    }
+
+    @Override
+    public Optional<UUID> findOrderId(String key, Instant notBefore) {
+        return jpaIdempotencyKeyRepository.findOrderId(key, notBefore);
+    }
+
+    @Override
+    @Transactional
+    public void register(String key, UUID orderId, Instant createdAt, Instant expiredBefore) {
+        jpaIdempotencyKeyRepository.deleteExpired(key, expiredBefore);
+        // Flush so a concurrent duplicate fails on the primary key here, inside the caller's transaction
+        jpaIdempotencyKeyRepository.saveAndFlush(new IdempotencyKeyEntity(key, orderId, createdAt));
+    }
+
+    @Override
+    @Transactional
+    public int deleteCreatedBefore(Instant cutoff) {
+        return jpaIdempotencyKeyRepository.deleteCreatedBefore(cutoff);
+    }
+}
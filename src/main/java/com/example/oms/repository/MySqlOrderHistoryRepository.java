@@ -0,0 +1,170 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderSnapshot;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.JpaOrderEventRepository;
+import com.example.oms.repository.jpa.JpaOrderSnapshotRepository;
+import com.example.oms.repository.jpa.OrderEventEntity;
+import com.example.oms.repository.jpa.OrderSnapshotEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+// Also backs repository.type=jdbc, which only replaces the order repository on the same database
+@org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("'${repository.type:mysql}' != 'memory'")
+@Transactional(readOnly = true)
+public class MySqlOrderHistoryRepository implements OrderHistoryRepository {
+
+    // Items and snapshots are stored as JSON written field by field here, so the stored format does not
+    // follow the application's ObjectMapper settings or the API's representation of orders
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final JpaOrderEventRepository jpaOrderEventRepository;
+    private final JpaOrderSnapshotRepository jpaOrderSnapshotRepository;
+
+    public MySqlOrderHistoryRepository(JpaOrderEventRepository jpaOrderEventRepository,
+                                       JpaOrderSnapshotRepository jpaOrderSnapshotRepository) {
+        this.jpaOrderEventRepository = jpaOrderEventRepository;
+        this.jpaOrderSnapshotRepository = jpaOrderSnapshotRepository;
+    }
+
+    @Override
+    public Map<UUID, Long> lastSequences(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Long> last = new HashMap<>();
+        for (Object[] row : jpaOrderEventRepository.findLastSequences(orderIds)) {
+            last.put((UUID) row[0], ((Number) row[1]).longValue());
+        }
+        return last;
+    }
+
+    @Override
+    @Transactional
+    public void append(List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OrderEventEntity> entities = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            String items = event.getType() == OrderEvent.Type.STATUS_CHANGED ? null : write(itemsNode(event.getItems()));
+            entities.add(new OrderEventEntity(event, items));
+        }
+        // Flushed together so Hibernate batches the INSERTs, and a taken sequence fails inside the caller
+        jpaOrderEventRepository.saveAll(entities);
+        jpaOrderEventRepository.flush();
+    }
+
+    @Override
+    @Transactional
+    public void saveSnapshot(UUID orderId, OrderSnapshot snapshot) {
+        jpaOrderSnapshotRepository.saveAndFlush(new OrderSnapshotEntity(orderId, snapshot.getSequence(),
+                snapshot.getOccurredAt(), write(stateNode(snapshot.getState()))));
+    }
+
+    @Override
+    public Optional<OrderSnapshot> findLatestSnapshot(UUID orderId, @Nullable Instant at) {
+        List<OrderSnapshotEntity> latest = at == null
+                ? jpaOrderSnapshotRepository.findLatest(orderId, Limit.of(1))
+                : jpaOrderSnapshotRepository.findLatest(orderId, at, Limit.of(1));
+        return latest.stream().findFirst().map(entity -> new OrderSnapshot(entity.getSequenceNumber(),
+                entity.getOccurredAt(), readState(entity.getState())));
+    }
+
+    @Override
+    public List<OrderEvent> findEvents(UUID orderId, long afterSequence, @Nullable Instant at) {
+        List<OrderEventEntity> entities = at == null
+                ? jpaOrderEventRepository.findAfter(orderId, afterSequence)
+                : jpaOrderEventRepository.findAfter(orderId, afterSequence, at);
+        return entities.stream()
+                .map(entity -> new OrderEvent(entity.getOrderId(), entity.getSequenceNumber(),
+                        entity.getEventType(), entity.getOccurredAt(), entity.getRecordedBy(), entity.getStatus(),
+                        entity.getCustomerId(), entity.getItems() == null ? List.of() : readItems(read(entity.getItems()))))
+                .toList();
+    }
+
+    private static ObjectNode stateNode(Order order) {
+        ObjectNode node = JSON.createObjectNode();
+        node.put("id", order.getId().toString());
+        node.put("customerId", order.getCustomerId() == null ? null : order.getCustomerId().toString());
+        node.put("status", order.getStatus().name());
+        node.put("createdAt", order.getCreatedAt().toString());
+        node.put("createdBy", order.getCreatedBy());
+        node.put("updatedAt", order.getUpdatedAt().toString());
+        node.put("updatedBy", order.getUpdatedBy());
+        node.set("items", itemsNode(order.getItems()));
+        return node;
+    }
+
+    private static Order readState(String json) {
+        JsonNode node = read(json);
+        Order order = new Order(UUID.fromString(node.get("id").asText()),
+                node.hasNonNull("customerId") ? UUID.fromString(node.get("customerId").asText()) : null,
+                Instant.parse(node.get("createdAt").asText()),
+                OrderStatus.valueOf(node.get("status").asText()),
+                readItems(node.get("items")));
+        order.setCreatedBy(node.hasNonNull("createdBy") ? node.get("createdBy").asText() : null);
+        order.setUpdatedAt(Instant.parse(node.get("updatedAt").asText()));
+        order.setUpdatedBy(node.hasNonNull("updatedBy") ? node.get("updatedBy").asText() : null);
+        return order;
+    }
+
+    private static ArrayNode itemsNode(List<OrderItem> items) {
+        ArrayNode array = JSON.createArrayNode();
+        for (OrderItem item : items) {
+            ObjectNode node = array.addObject();
+            node.put("productId", item.getProductId());
+            node.put("productName", item.getProductName());
+            node.put("quantity", item.getQuantity());
+            node.put("unitPrice", item.getUnitPrice());
+        }
+        return array;
+    }
+
+    private static List<OrderItem> readItems(JsonNode array) {
+        List<OrderItem> items = new ArrayList<>(array.size());
+        for (JsonNode node : array) {
+            items.add(new OrderItem(node.get("productId").asText(),
+                    node.hasNonNull("productName") ? node.get("productName").asText() : null,
+                    node.get("quantity").asInt(),
+                    node.hasNonNull("unitPrice") ? node.get("unitPrice").decimalValue() : null));
+        }
+        return items;
+    }
+
+    private static String write(JsonNode node) {
+        try {
+            return JSON.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode order history", e);
+        }
+    }
+
+    private static JsonNode read(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored order history is not valid JSON", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.repository.jpa.JpaOrderOutboxRepository;
+import com.example.oms.repository.jpa.OrderOutboxEntity;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+// Also backs repository.type=jdbc, which only replaces the order repository on the same database
+@org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("'${repository.type:mysql}' != 'memory'")
+@Transactional(readOnly = true)
+public class MySqlOrderOutboxRepository implements OrderOutboxRepository {
+
+    private final JpaOrderOutboxRepository jpaOrderOutboxRepository;
+
+    public MySqlOrderOutboxRepository(JpaOrderOutboxRepository jpaOrderOutboxRepository) {
+        this.jpaOrderOutboxRepository = jpaOrderOutboxRepository;
+    }
+
+    @Override
+    @Transactional
+    public void append(List<OrderLifecycleEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // New entities flushed together, so Hibernate batches the INSERTs with the order's own writes
+        jpaOrderOutboxRepository.saveAll(events.stream().map(OrderOutboxEntity::new).toList());
+        jpaOrderOutboxRepository.flush();
+    }
+
+    @Override
+    @Transactional
+    public List<OrderLifecycleEvent> lockUndelivered(int limit) {
+        return jpaOrderOutboxRepository.lockUndelivered(limit).stream()
+                .map(OrderOutboxEntity::toEvent)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void markDelivered(Collection<UUID> ids, Instant deliveredAt) {
+        if (!ids.isEmpty()) {
+            jpaOrderOutboxRepository.markDelivered(ids, deliveredAt);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int deleteDeliveredBefore(Instant cutoff) {
+        return jpaOrderOutboxRepository.deleteDeliveredBefore(cutoff);
+    }
+}
@@ -1,19 +1,37 @@
 package com.example.oms.repository;
 
+import com.example.oms.datasource.ReadYourWritesTracker;
+import com.example.oms.exception.OrderVersionConflictException;
 import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
 import com.example.oms.repository.jpa.OrderEntity;
 import com.example.oms.repository.jpa.OrderItemEntity;
 import com.example.oms.repository.jpa.JpaOrderRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Repository
@@ -27,65 +45,313 @@ import java.util.stream.Collectors;
 public class MySqlOrderRepository implements OrderRepository {
 
     private final JpaOrderRepository jpaOrderRepository;
+    private final ReadYourWritesTracker recentWrites;
+    private final OrderExportQuery exportQuery;
 
-    public MySqlOrderRepository(JpaOrderRepository jpaOrderRepository) {
+    public MySqlOrderRepository(JpaOrderRepository jpaOrderRepository,
+                                ReadYourWritesTracker recentWrites,
+                                DataSource dataSource) {
         this.jpaOrderRepository = jpaOrderRepository;
+        this.recentWrites = recentWrites;
+        this.exportQuery = new OrderExportQuery(dataSource);
     }
 
     @Override
     @Transactional
     public Order save(Order order) {
-        OrderEntity entity = toEntity(order);
-        OrderEntity saved = jpaOrderRepository.save(entity);
-        return toDomain(saved);
+        try {
+            // Flush here so a stale version surfaces from this call rather than at commit
+            OrderEntity saved = order.getVersion() == null
+                    ? jpaOrderRepository.saveAndFlush(toNewEntity(order))
+                    : update(order);
+            recordWrite(saved);
+            return toDomain(saved);
+        } catch (OptimisticLockingFailureException e) {
+            throw new OrderVersionConflictException(order.getId(), order.getVersion(), e);
+        }
+    }
+
+    /**
+     * Applies an existing order onto its managed entity instead of merging a rebuilt one: items are
+     * matched on their id, so only new items are inserted, changed ones updated and dropped ones
+     * deleted, and dirty checking leaves every untouched item row alone.
+     */
+    private OrderEntity update(Order order) {
+        OrderEntity entity = jpaOrderRepository.findByIdWithItems(order.getId())
+                .filter(current -> Objects.equals(current.getVersion(), order.getVersion()))
+                .orElseThrow(() -> new OrderVersionConflictException(order.getId(), order.getVersion()));
+        entity.setCustomerId(order.getCustomerId());
+        entity.setCreatedAt(order.getCreatedAt());
+        entity.setStatus(order.getStatus());
+        // Always dirties the order row, so its version moves on even when only items changed
+        entity.setUpdatedDate(Instant.now());
+
+        Map<UUID, OrderItemEntity> persisted = entity.getItems().stream()
+                .collect(Collectors.toMap(item -> itemId(item.getItemId()), Function.identity()));
+        for (OrderItem item : order.getItems()) {
+            OrderItemEntity existing = item.getId() == null ? null : persisted.remove(item.getId());
+            if (existing == null) {
+                entity.addItem(toEntity(item));
+            } else if (!sameItem(existing, item)) {
+                existing.setProductId(item.getProductId());
+                existing.setProductName(item.getProductName());
+                existing.setQuantity(item.getQuantity());
+                existing.setUnitPrice(item.getUnitPrice());
+            }
+        }
+        // orphanRemoval deletes the rows of items that are no longer on the order
+        entity.getItems().removeAll(persisted.values());
+        jpaOrderRepository.flush();
+        return entity;
+    }
+
+    @Override
+    @Transactional
+    public Order insert(Order order) {
+        // Overridden so the insert runs in a read-write transaction, not the class-level read-only one
+        return insertAll(List.of(order)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<Order> saveAll(List<Order> orders) {
+        if (orders.stream().anyMatch(order -> order.getVersion() != null)) {
+            return orders.stream().map(this::save).collect(Collectors.toList());
+        }
+        return insertAll(orders);
+    }
+
+    @Override
+    @Transactional
+    public List<Order> insertAll(List<Order> orders) {
+        // Entities are marked new and versions ignored, so nothing is looked up before the INSERTs
+        List<OrderEntity> entities = orders.stream()
+                .map(this::toNewEntity)
+                .collect(Collectors.toList());
+        // New entities are persisted together and flushed once, so Hibernate groups the INSERTs into
+        // JDBC batches of hibernate.jdbc.batch_size that rewriteBatchedStatements turns into multi-row inserts
+        List<OrderEntity> saved = jpaOrderRepository.saveAll(entities);
+        jpaOrderRepository.flush();
+        saved.forEach(this::recordWrite);
+        return saved.stream()
+                .map(this::toDomain)
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
     public void delete(Order order) {
         if (order != null && order.getId() != null) {
-            jpaOrderRepository.deleteById(order.getId());
+            // Loaded first, as deleteById would, so the customer's listings are pinned to the primary too
+            jpaOrderRepository.findById(order.getId()).ifPresent(entity -> {
+                jpaOrderRepository.delete(entity);
+                recentWrites.recordWrite(entity.getCustomerId());
+            });
+            recentWrites.recordWrite(order.getId());
         }
     }
 
     @Override
     public Optional<Order> findById(UUID id) {
-        return jpaOrderRepository.findById(id)
+        // Within the read-your-writes window the order is read from the primary, not a lagging replica
+        return recentWrites.read(id, () -> jpaOrderRepository.findById(id))
                 .map(this::toDomain);
     }
 
+    @Override
+    @Transactional
+    public Optional<Order> findByIdForUpdate(UUID id) {
+        return jpaOrderRepository.findByIdForUpdate(id).map(this::toDomain);
+    }
+
     @Override
     public Page<Order> findAll(Pageable pageable) {
-        return jpaOrderRepository.findAllWithItems(pageable)
-                .map(this::toDomain);
+        return loadPage(jpaOrderRepository.findPageOfIds(pageable));
     }
 
     @Override
     public Page<Order> findByStatus(OrderStatus status, Pageable pageable) {
-        return jpaOrderRepository.findByStatusWithItems(status, pageable)
-                .map(this::toDomain);
+        return loadPage(jpaOrderRepository.findPageOfIdsByStatus(status, pageable));
+    }
+
+    @Override
+    public Slice<Order> findSlice(OrderStatus status, Pageable pageable) {
+        Slice<UUID> ids = status == null
+                ? jpaOrderRepository.findSliceOfIds(pageable)
+                : jpaOrderRepository.findSliceOfIdsByStatus(status, pageable);
+        return new SliceImpl<>(loadInOrder(ids.getContent()), ids.getPageable(), ids.hasNext());
+    }
+
+    @Override
+    public long count(OrderStatus status) {
+        return status == null ? jpaOrderRepository.count() : jpaOrderRepository.countByStatus(status);
+    }
+
+    @Override
+    public List<Order> findPageAfter(OrderStatus status, OrderCursor after, int limit) {
+        // Seeks from the cursor instead of skipping an offset, so deep pages cost the same and no count runs
+        Limit rows = Limit.of(limit);
+        List<UUID> ids;
+        if (status == null) {
+            ids = after == null
+                    ? jpaOrderRepository.findFirstPageIds(rows)
+                    : jpaOrderRepository.findPageIdsAfter(after.getCreatedAt(), after.getId(), rows);
+        } else {
+            ids = after == null
+                    ? jpaOrderRepository.findFirstPageIdsByStatus(status, rows)
+                    : jpaOrderRepository.findPageIdsByStatusAfter(status, after.getCreatedAt(), after.getId(), rows);
+        }
+        return loadInOrder(ids);
+    }
+
+    @Override
+    public List<Order> findCustomerPageAfter(UUID customerId, OrderCursor after, int limit) {
+        Limit rows = Limit.of(limit);
+        // Writes record the customer id too, so a customer who just ordered sees the new order
+        return recentWrites.read(customerId, () -> loadInOrder(after == null
+                ? jpaOrderRepository.findFirstCustomerPageIds(customerId, rows)
+                : jpaOrderRepository.findCustomerPageIdsAfter(customerId, after.getCreatedAt(), after.getId(), rows)));
+    }
+
+    /**
+     * Reads with plain JDBC on the transaction's connection: a streamed entity query would still
+     * collect every entity in the persistence context, and the export only needs the rows
+     */
+    @Override
+    public void forEachOrder(OrderStatus status, Instant from, Instant to, Consumer<Order> action) {
+        exportQuery.forEach(status, from, to, action);
+    }
+
+    private Page<Order> loadPage(Page<UUID> ids) {
+        return new PageImpl<>(loadInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+    }
+
+    // Second phase of a page query: one IN query for the page's orders and items, in the ids' order
+    private List<Order> loadInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Order> byId = jpaOrderRepository.findAllWithItemsByIdIn(ids).stream()
+                .map(this::toDomain)
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<UUID> claimBatch(OrderStatus from, OrderStatus to, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        // Joins the caller's transaction, so the claimed rows stay locked until the caller commits
+        return from == to ? List.of() : claim(from, to, batchSize);
+    }
+
+    @Override
+    @Transactional
+    public List<UUID> claimBatch(Collection<UUID> ids, OrderStatus from, OrderStatus to) {
+        if (ids.isEmpty() || from == to) {
+            return List.of();
+        }
+        // Locked first, so the caller learns which orders moved
+        List<UUID> locked = jpaOrderRepository.lockIdsInStatus(ids, from);
+        if (!locked.isEmpty()) {
+            jpaOrderRepository.updateStatusByIds(locked, to, Instant.now());
+            locked.forEach(recentWrites::recordWrite);
+        }
+        return locked;
+    }
+
+    @Override
+    @Transactional
+    public boolean compareAndSetStatus(UUID id, Set<OrderStatus> expected, OrderStatus target) {
+        // Overridden so the update runs in a read-write transaction, not the class-level read-only one
+        return updateStatus(id, expected, target, Instant.now(), null);
+    }
+
+    @Override
+    @Transactional
+    public boolean updateStatus(UUID id, Set<OrderStatus> expected, OrderStatus target, Instant updatedAt,
+                                String updatedBy) {
+        if (expected.isEmpty()) {
+            return false;
+        }
+        // A bulk UPDATE rather than save: merging a rebuilt aggregate would delete and re-insert every item
+        boolean updated = jpaOrderRepository.updateStatus(id, expected, target, updatedAt, updatedBy) == 1;
+        if (updated) {
+            recentWrites.recordWrite(id);
+        }
+        return updated;
+    }
+
+    private List<UUID> claim(OrderStatus from, OrderStatus to, int limit) {
+        List<UUID> ids = jpaOrderRepository.lockNextIds(from.name(), limit).stream()
+                .map(MySqlOrderRepository::toUuid)
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            jpaOrderRepository.updateStatusByIds(ids, to, Instant.now());
+            ids.forEach(recentWrites::recordWrite);
+        }
+        return ids;
+    }
+
+    private void recordWrite(OrderEntity entity) {
+        recentWrites.recordWrite(entity.getId());
+        recentWrites.recordWrite(entity.getCustomerId());
+    }
+
+    // Native queries return BINARY(16) ids as raw bytes
+    private static UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((byte[]) value);
+        return new UUID(buffer.getLong(), buffer.getLong());
     }
 
-    private OrderEntity toEntity(Order order) {
+    // Marked new so Spring Data persists it: pure INSERTs, no SELECT by the assigned id first
+    private OrderEntity toNewEntity(Order order) {
         OrderEntity entity = new OrderEntity(
                 order.getId(),
                 order.getCustomerId(),
                 order.getCreatedAt(),
                 order.getStatus()
         );
+        entity.markNew();
 
         List<OrderItemEntity> itemEntities = order.getItems().stream()
-                .map(item -> {
-                    OrderItemEntity itemEntity = new OrderItemEntity(item.getProductId(), item.getQuantity());
-                    itemEntity.setOrder(entity);
-                    return itemEntity;
-                })
+                .map(this::toEntity)
                 .collect(Collectors.toList());
 
         entity.setItems(itemEntities);
         return entity;
     }
 
+    // Reads map a missing product name to "" and prices compare by value, as Hibernate's dirty check does
+    private static boolean sameItem(OrderItemEntity persisted, OrderItem item) {
+        return Objects.equals(persisted.getProductId(), item.getProductId())
+                && persisted.getQuantity() == item.getQuantity()
+                && Objects.equals(Objects.toString(persisted.getProductName(), ""), Objects.toString(item.getProductName(), ""))
+                && (persisted.getUnitPrice() == null
+                        ? item.getUnitPrice() == null
+                        : item.getUnitPrice() != null && persisted.getUnitPrice().compareTo(item.getUnitPrice()) == 0);
+    }
+
+    private OrderItemEntity toEntity(OrderItem item) {
+        OrderItemEntity itemEntity = new OrderItemEntity(item.getProductId(), item.getQuantity());
+        itemEntity.setProductName(item.getProductName());
+        itemEntity.setUnitPrice(item.getUnitPrice());
+        return itemEntity;
+    }
+
+    // Domain item ids are derived from the row id, so they stay the same for as long as the row exists
+    private static UUID itemId(Long rowId) {
+        return UUID.nameUUIDFromBytes(rowId.toString().getBytes());
+    }
+
     private Order toDomain(OrderEntity entity) {
         if (entity == null) {
             return null;
@@ -95,9 +361,8 @@ public class MySqlOrderRepository implements OrderRepository {
             entity.getItems().stream()
                 .map(item -> {
                     OrderItem orderItem = new OrderItem();
-                    // Convert Long itemId to UUID if needed, or use null if itemId is null
                     if (item.getItemId() != null) {
-                        orderItem.setId(UUID.nameUUIDFromBytes(item.getItemId().toString().getBytes()));
+                        orderItem.setId(itemId(item.getItemId()));
                     }
                     orderItem.setProductId(item.getProductId());
                     orderItem.setProductName(item.getProductName() != null ? item.getProductName() : "");
@@ -108,13 +373,19 @@ public class MySqlOrderRepository implements OrderRepository {
                 .collect(Collectors.toList()) : 
             List.of();
 
-        return new Order(
+        Order order = new Order(
             entity.getId(),
             entity.getCustomerId(),
             entity.getCreatedAt(),
             entity.getStatus(),
             items
         );
+        order.setVersion(entity.getVersion());
+        if (entity.getUpdatedDate() != null) {
+            order.setUpdatedAt(entity.getUpdatedDate());
+        }
+        order.setUpdatedBy(entity.getUpdatedBy());
+        return order;
     }
 }
 
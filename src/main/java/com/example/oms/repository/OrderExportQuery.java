@@ -0,0 +1,115 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Export read shared by the database-backed repositories: one forward-only, read-only query over orders
+ * and their items, ordered by (created_at, id) so the rows of an order arrive together and each order is
+ * handed on as soon as its last row has been read. Only the order being assembled is held in memory.
+ * <p>
+ * Connector/J buffers a whole result set unless the fetch size is {@link Integer#MIN_VALUE}, which makes
+ * it stream rows off the socket instead; other drivers take an ordinary bounded fetch size.
+ */
+final class OrderExportQuery {
+
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    OrderExportQuery(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @param from Only orders created at or after this instant, or no lower bound when null
+     * @param to Only orders created before this instant, or no upper bound when null
+     */
+    void forEach(OrderStatus status, Instant from, Instant to, Consumer<Order> action) {
+        StringBuilder sql = new StringBuilder(JdbcOrderRepository.SELECT_ORDERS_WITH_ITEMS).append("WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND o.status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(JdbcOrderRepository.timestamp(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(JdbcOrderRepository.timestamp(to));
+        }
+        // No item column in the ORDER BY, so MySQL can walk idx_orders_created_at (or the status one)
+        // instead of sorting the whole join first
+        sql.append(" ORDER BY o.created_at, o.id");
+
+        Folder folder = new Folder(action);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(isMySql(con) ? Integer.MIN_VALUE : FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return ps;
+        }, folder);
+        folder.flush();
+    }
+
+    private static boolean isMySql(Connection con) throws SQLException {
+        String product = con.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("mysql");
+    }
+
+    // Folds consecutive rows of the same order, like JdbcOrderRepository's ORDERS_WITH_ITEMS, one order at a time
+    private static final class Folder implements RowCallbackHandler {
+        private final Consumer<Order> action;
+        private Order current;
+        private List<OrderItem> items;
+
+        Folder(Consumer<Order> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            UUID id = JdbcOrderRepository.uuid(rs.getObject("id"));
+            if (current == null || !current.getId().equals(id)) {
+                flush();
+                current = new Order(id, JdbcOrderRepository.uuid(rs.getObject("customer_id")),
+                        JdbcOrderRepository.instant(rs, "created_at"), OrderStatus.valueOf(rs.getString("status")),
+                        null);
+                current.setVersion(rs.getLong("version"));
+                current.setUpdatedAt(JdbcOrderRepository.instant(rs, "updated_date"));
+                current.setUpdatedBy(rs.getString("updated_by"));
+                items = new ArrayList<>();
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                items.add(JdbcOrderRepository.item(itemId, rs.getString("product_id"), rs.getString("product_name"),
+                        rs.getInt("quantity"), rs.getBigDecimal("unit_price")));
+            }
+        }
+
+        void flush() {
+            if (current != null) {
+                action.accept(JdbcOrderRepository.withItems(current, current.getVersion(), items));
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderSnapshot;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only history of orders: the order_events table, keyed by (order id, sequence), and the
+ * order_snapshots taken every few events.
+ */
+public interface OrderHistoryRepository {
+
+    /**
+     * @return the highest recorded sequence of each given order that has any events
+     */
+    Map<UUID, Long> lastSequences(Collection<UUID> orderIds);
+
+    /**
+     * Inserts numbered events in the caller's transaction, as one batch where the store allows it.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a sequence is already taken
+     */
+    void append(List<OrderEvent> events);
+
+    /**
+     * Runs a read of the last sequences and the append of events numbered from them, so that no other
+     * writer of the same orders takes those numbers in between. Database stores run it as it is, because
+     * their writers already hold the orders' row locks.
+     */
+    default void numberAndAppend(Runnable numberAndAppend) {
+        numberAndAppend.run();
+    }
+
+    void saveSnapshot(UUID orderId, OrderSnapshot snapshot);
+
+    /**
+     * @param at Only snapshots of events that happened at or before this instant, or any when null
+     * @return the order's snapshot with the highest sequence
+     */
+    Optional<OrderSnapshot> findLatestSnapshot(UUID orderId, @Nullable Instant at);
+
+    /**
+     * @param at Only events that happened at or before this instant, or all when null
+     * @return the order's events after {@code afterSequence}, in sequence order
+     */
+    List<OrderEvent> findEvents(UUID orderId, long afterSequence, @Nullable Instant at);
+}
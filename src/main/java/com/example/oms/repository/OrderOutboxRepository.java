@@ -0,0 +1,34 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.OrderLifecycleEvent;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The order_outbox table: lifecycle events recorded with the order changes they describe and
+ * relayed to downstream systems afterwards.
+ */
+public interface OrderOutboxRepository {
+
+    /**
+     * Records events in the caller's transaction, so they are committed or rolled back together with
+     * the order changes they describe
+     */
+    void append(List<OrderLifecycleEvent> events);
+
+    /**
+     * Locks up to {@code limit} undelivered events, oldest first, skipping events locked by another
+     * relay. Joins the caller's transaction, so the events stay locked until it commits.
+     */
+    List<OrderLifecycleEvent> lockUndelivered(int limit);
+
+    void markDelivered(Collection<UUID> ids, Instant deliveredAt);
+
+    /**
+     * @return the number of delivered events removed
+     */
+    int deleteDeliveredBefore(Instant cutoff);
+}
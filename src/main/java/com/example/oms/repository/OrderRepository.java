@@ -1,20 +1,67 @@
 package com.example.oms.repository;
 
 import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
 import com.example.oms.model.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface OrderRepository {
     Order save(Order order);
+
+    default List<Order> saveAll(List<Order> orders) {
+        return orders.stream().map(this::save).toList();
+    }
+
+    // INSERTs only: an id that is already taken fails with a DataIntegrityViolationException
+    List<Order> insertAll(List<Order> orders);
+
+    default Order insert(Order order) {
+        return insertAll(List.of(order)).get(0);
+    }
+
     Optional<Order> findById(UUID id);
+
+    // Reads the order and locks its row until the surrounding transaction ends
+    Optional<Order> findByIdForUpdate(UUID id);
+
     void delete(Order order);
     Page<Order> findAll(Pageable pageable);
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
+
+    // A null status means all orders in the queries below
+    Slice<Order> findSlice(@Nullable OrderStatus status, Pageable pageable);
+    long count(@Nullable OrderStatus status);
+
+    // Keyset pages, newest first: the orders strictly after the cursor, or the first page when it is null
+    List<Order> findPageAfter(@Nullable OrderStatus status, @Nullable OrderCursor after, int limit);
+    List<Order> findCustomerPageAfter(UUID customerId, @Nullable OrderCursor after, int limit);
+
+    // Oldest first, created in [from, to); a null bound is open
+    void forEachOrder(@Nullable OrderStatus status, @Nullable Instant from, @Nullable Instant to,
+                      Consumer<Order> action);
+
+    // Status moves without loading the orders; only orders still in from are moved
+    List<UUID> claimBatch(OrderStatus from, OrderStatus to, int batchSize);
+    List<UUID> claimBatch(Collection<UUID> ids, OrderStatus from, OrderStatus to);
+
+    // A null updatedBy keeps the current one; false if the order is missing or not in an expected status
+    boolean updateStatus(UUID id, Set<OrderStatus> expected, OrderStatus target, Instant updatedAt,
+                         @Nullable String updatedBy);
+
+    default boolean compareAndSetStatus(UUID id, Set<OrderStatus> expected, OrderStatus target) {
+        return updateStatus(id, expected, target, Instant.now(), null);
+    }
     
     // Keep the old methods for backward compatibility
     @Deprecated
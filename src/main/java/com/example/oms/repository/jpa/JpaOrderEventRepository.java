@@ -0,0 +1,29 @@
+package com.example.oms.repository.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaOrderEventRepository extends JpaRepository<OrderEventEntity, OrderHistoryKey> {
+
+    // One primary key lookup per order: the last entry of its (order_id, sequence_number) range
+    @Query("SELECT e.orderId, MAX(e.sequenceNumber) FROM OrderEventEntity e WHERE e.orderId IN :orderIds "
+            + "GROUP BY e.orderId")
+    List<Object[]> findLastSequences(@Param("orderIds") Collection<UUID> orderIds);
+
+    @Query("SELECT e FROM OrderEventEntity e WHERE e.orderId = :orderId AND e.sequenceNumber > :after "
+            + "ORDER BY e.sequenceNumber")
+    List<OrderEventEntity> findAfter(@Param("orderId") UUID orderId, @Param("after") long after);
+
+    @Query("SELECT e FROM OrderEventEntity e WHERE e.orderId = :orderId AND e.sequenceNumber > :after "
+            + "AND e.occurredAt <= :at ORDER BY e.sequenceNumber")
+    List<OrderEventEntity> findAfter(@Param("orderId") UUID orderId, @Param("after") long after,
+                                     @Param("at") Instant at);
+}
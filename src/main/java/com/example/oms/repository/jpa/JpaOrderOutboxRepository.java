@@ -0,0 +1,29 @@
+package com.example.oms.repository.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaOrderOutboxRepository extends JpaRepository<OrderOutboxEntity, UUID> {
+
+    // Oldest undelivered rows first; SKIP LOCKED lets relays on several nodes drain disjoint batches
+    @Query(value = "SELECT * FROM order_outbox WHERE delivered_at IS NULL ORDER BY id LIMIT :limit "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutboxEntity> lockUndelivered(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEntity e SET e.deliveredAt = :deliveredAt WHERE e.id IN :ids")
+    int markDelivered(@Param("ids") Collection<UUID> ids, @Param("deliveredAt") Instant deliveredAt);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEntity e WHERE e.deliveredAt < :cutoff")
+    int deleteDeliveredBefore(@Param("cutoff") Instant cutoff);
+}
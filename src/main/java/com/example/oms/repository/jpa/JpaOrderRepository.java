@@ -1,14 +1,21 @@
 package com.example.oms.repository.jpa;
 
 import com.example.oms.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,17 +23,95 @@ import java.util.UUID;
 @Repository
 public interface JpaOrderRepository extends JpaRepository<OrderEntity, UUID> {
     
-    @EntityGraph(attributePaths = {"items"})
-    @Query("SELECT DISTINCT o FROM OrderEntity o LEFT JOIN FETCH o.items")
-    Page<OrderEntity> findAllWithItems(Pageable pageable);
-    
-    @EntityGraph(attributePaths = {"items"})
-    @Query("SELECT DISTINCT o FROM OrderEntity o LEFT JOIN FETCH o.items WHERE o.status = :status")
-    Page<OrderEntity> findByStatusWithItems(@Param("status") OrderStatus status, Pageable pageable);
-    
+    // Offset pages select ids only, so LIMIT/OFFSET apply to orders rather than to order x item rows;
+    // the orders and their items are then loaded with findAllWithItemsByIdIn
+    @Query(value = "SELECT o.id FROM OrderEntity o",
+            countQuery = "SELECT COUNT(o) FROM OrderEntity o")
+    Page<UUID> findPageOfIds(Pageable pageable);
+
+    @Query(value = "SELECT o.id FROM OrderEntity o WHERE o.status = :status",
+            countQuery = "SELECT COUNT(o) FROM OrderEntity o WHERE o.status = :status")
+    Page<UUID> findPageOfIdsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query("SELECT o.id FROM OrderEntity o")
+    Slice<UUID> findSliceOfIds(Pageable pageable);
+
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.status = :status")
+    Slice<UUID> findSliceOfIdsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    long countByStatus(OrderStatus status);
+
+    @Query("SELECT DISTINCT o FROM OrderEntity o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<OrderEntity> findAllWithItemsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Keyset pages of the newest-first listing. InnoDB secondary indexes end with the primary key, so
+    // idx_orders_created_at and idx_orders_status_created_at are effectively (created_at, id) and
+    // (status, created_at, id): the seek predicate is an index range scan that stops after LIMIT rows
+    @Query("SELECT o.id FROM OrderEntity o ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findFirstPageIds(Limit limit);
+
+    @Query("SELECT o.id FROM OrderEntity o "
+            + "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findPageIdsAfter(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findFirstPageIdsByStatus(@Param("status") OrderStatus status, Limit limit);
+
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.status = :status "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findPageIdsByStatusAfter(@Param("status") OrderStatus status,
+                                        @Param("createdAt") Instant createdAt,
+                                        @Param("id") UUID id,
+                                        Limit limit);
+
+    // Same seek on idx_orders_customer_created_at, effectively (customer_id, created_at, id)
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.customerId = :customerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findFirstCustomerPageIds(@Param("customerId") UUID customerId, Limit limit);
+
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.customerId = :customerId "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findCustomerPageIdsAfter(@Param("customerId") UUID customerId,
+                                        @Param("createdAt") Instant createdAt,
+                                        @Param("id") UUID id,
+                                        Limit limit);
+
     @EntityGraph(attributePaths = {"items"})
     @Query("SELECT o FROM OrderEntity o LEFT JOIN FETCH o.items WHERE o.id = :id")
     Optional<OrderEntity> findByIdWithItems(@Param("id") UUID id);
+
+    // Row-locking claim; SKIP LOCKED lets concurrent nodes take disjoint batches without waiting
+    @Query(value = "SELECT id FROM orders WHERE status = :status ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Object> lockNextIds(@Param("status") String status, @Param("limit") int limit);
+
+    // SELECT ... FOR UPDATE; the row stays locked until the caller's transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderEntity o WHERE o.id = :id")
+    Optional<OrderEntity> findByIdForUpdate(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.id IN :ids AND o.status = :status")
+    List<UUID> lockIdsInStatus(@Param("ids") Collection<UUID> ids, @Param("status") OrderStatus status);
+
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.status = :to, o.updatedDate = :now, o.version = o.version + 1 WHERE o.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<UUID> ids,
+                          @Param("to") OrderStatus to,
+                          @Param("now") Instant now);
+
+    // Touches the orders row only; bulk updates bypass the auditing listener, so updatedBy is set here
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.status = :target, o.updatedDate = :now, "
+            + "o.updatedBy = COALESCE(:updatedBy, o.updatedBy), o.version = o.version + 1 "
+            + "WHERE o.id = :id AND o.status IN :expected")
+    int updateStatus(@Param("id") UUID id,
+                     @Param("expected") Collection<OrderStatus> expected,
+                     @Param("target") OrderStatus target,
+                     @Param("now") Instant now,
+                     @Param("updatedBy") String updatedBy);
     
     // Keep the old methods for backward compatibility
     @Deprecated
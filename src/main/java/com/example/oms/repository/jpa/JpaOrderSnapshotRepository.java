@@ -0,0 +1,22 @@
+package com.example.oms.repository.jpa;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaOrderSnapshotRepository extends JpaRepository<OrderSnapshotEntity, OrderHistoryKey> {
+
+    @Query("SELECT s FROM OrderSnapshotEntity s WHERE s.orderId = :orderId ORDER BY s.sequenceNumber DESC")
+    List<OrderSnapshotEntity> findLatest(@Param("orderId") UUID orderId, Limit limit);
+
+    @Query("SELECT s FROM OrderSnapshotEntity s WHERE s.orderId = :orderId AND s.occurredAt <= :at "
+            + "ORDER BY s.sequenceNumber DESC")
+    List<OrderSnapshotEntity> findLatest(@Param("orderId") UUID orderId, @Param("at") Instant at, Limit limit);
+}
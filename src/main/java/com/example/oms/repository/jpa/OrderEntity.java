@@ -7,6 +7,7 @@ import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.Instant;
@@ -17,15 +18,28 @@ import java.util.UUID;
 @Entity
 @Table(name = "orders")
 @EntityListeners(AuditingEntityListener.class)
-public class OrderEntity {
+public class OrderEntity implements Persistable<UUID> {
     @Id
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
-    
+
+    // Ids are assigned before saving, so Spring Data cannot tell a new order from a detached one by its
+    // id and would merge it, which starts with a SELECT by id. Entities built for an insert are marked
+    // instead; the mark is cleared once the entity is persisted or loaded.
+    @Transient
+    private boolean isNew;
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
     @PrePersist
     protected void onCreate() {
+        // Ids are assigned upstream, by OrderService from order.id.strategy or by the import; never here
         if (id == null) {
-            id = UUID.randomUUID();
+            throw new IllegalStateException("Order id must be assigned before the order is inserted");
         }
         if (createdAt == null) {
             createdAt = Instant.now();
@@ -49,6 +63,10 @@ public class OrderEntity {
     @BatchSize(size = 100) // Batch fetching for N+1 protection
     private List<OrderItemEntity> items = new ArrayList<>();
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreatedDate
     @Column(name = "created_date", nullable = false, updatable = false)
     private Instant createdDate;
@@ -75,10 +93,20 @@ public class OrderEntity {
         this.status = status;
     }
 
+    @Override
     public UUID getId() {
         return id;
     }
 
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public void markNew() {
+        isNew = true;
+    }
+
     public void setId(UUID id) {
         this.id = id;
     }
@@ -133,6 +161,14 @@ public class OrderEntity {
         item.setOrder(this);
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Instant getCreatedDate() {
         return createdDate;
     }
@@ -0,0 +1,109 @@
+package com.example.oms.repository.jpa;
+
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderStatus;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "order_events")
+@IdClass(OrderHistoryKey.class)
+public class OrderEventEntity implements Persistable<OrderHistoryKey> {
+    @Id
+    @Column(name = "order_id", columnDefinition = "BINARY(16)")
+    private UUID orderId;
+
+    @Id
+    @Column(name = "sequence_number")
+    private long sequenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private OrderEvent.Type eventType;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "recorded_by", length = 100)
+    private String recordedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private OrderStatus status;
+
+    @Column(name = "customer_id", columnDefinition = "BINARY(16)")
+    private UUID customerId;
+
+    // JSON array of the order's items after CREATED and ITEMS_CHANGED events
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String items;
+
+    // Events are only ever inserted; a taken sequence fails on the primary key instead of being merged
+    @Transient
+    private boolean newEntity = true;
+
+    public OrderEventEntity() {
+    }
+
+    public OrderEventEntity(OrderEvent event, String items) {
+        this.orderId = event.getOrderId();
+        this.sequenceNumber = event.getSequence();
+        this.eventType = event.getType();
+        this.occurredAt = event.getOccurredAt();
+        this.recordedBy = event.getRecordedBy();
+        this.status = event.getStatus();
+        this.customerId = event.getCustomerId();
+        this.items = items;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public OrderHistoryKey getId() {
+        return new OrderHistoryKey(orderId, sequenceNumber);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public OrderEvent.Type getEventType() {
+        return eventType;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getRecordedBy() {
+        return recordedBy;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public String getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.oms.repository.jpa;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of order_events and order_snapshots
+ */
+public class OrderHistoryKey implements Serializable {
+
+    private UUID orderId;
+    private long sequenceNumber;
+
+    public OrderHistoryKey() {
+    }
+
+    public OrderHistoryKey(UUID orderId, long sequenceNumber) {
+        this.orderId = orderId;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderHistoryKey other)) return false;
+        return sequenceNumber == other.sequenceNumber && Objects.equals(orderId, other.orderId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderId, sequenceNumber);
+    }
+}
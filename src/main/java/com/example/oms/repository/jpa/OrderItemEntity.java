@@ -16,8 +16,16 @@ import java.time.Instant;
 @Table(name = "order_items")
 @EntityListeners(AuditingEntityListener.class)
 public class OrderItemEntity {
+    // Must match the increment applied to order_items_seq by V4__Order_items_pooled_ids.sql; the JDBC
+    // repository reserves item ids in blocks of the same size
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Pooled ids from the order_items_seq table (a real sequence where the database has them):
+    // one round-trip reserves ALLOCATION_SIZE ids, and unlike IDENTITY the inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = ALLOCATION_SIZE)
+    @Column(name = "id")
     private Long itemId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,73 @@
+package com.example.oms.repository.jpa;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.model.OrderStatus;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "order_outbox", indexes = @Index(name = "idx_order_outbox_delivered_at", columnList = "delivered_at, id"))
+public class OrderOutboxEntity implements Persistable<UUID> {
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @Column(name = "order_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private OrderLifecycleEvent.Type eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+
+    // Outbox rows are only ever inserted, so saving never selects by the assigned id first
+    @Transient
+    private boolean newEntity = true;
+
+    public OrderOutboxEntity() {
+    }
+
+    public OrderOutboxEntity(OrderLifecycleEvent event) {
+        this.id = event.getId();
+        this.orderId = event.getOrderId();
+        this.eventType = event.getType();
+        this.status = event.getStatus();
+        this.occurredAt = event.getOccurredAt();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    public Instant getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public OrderLifecycleEvent toEvent() {
+        return new OrderLifecycleEvent(id, orderId, eventType, status, occurredAt);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.oms.repository.jpa;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "order_snapshots")
+@IdClass(OrderHistoryKey.class)
+public class OrderSnapshotEntity implements Persistable<OrderHistoryKey> {
+    @Id
+    @Column(name = "order_id", columnDefinition = "BINARY(16)")
+    private UUID orderId;
+
+    @Id
+    @Column(name = "sequence_number")
+    private long sequenceNumber;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    // JSON document of the order as it was after the event at sequence_number
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String state;
+
+    @Transient
+    private boolean newEntity = true;
+
+    public OrderSnapshotEntity() {
+    }
+
+    public OrderSnapshotEntity(UUID orderId, long sequenceNumber, Instant occurredAt, String state) {
+        this.orderId = orderId;
+        this.sequenceNumber = sequenceNumber;
+        this.occurredAt = occurredAt;
+        this.state = state;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public OrderHistoryKey getId() {
+        return new OrderHistoryKey(orderId, sequenceNumber);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getState() {
+        return state;
+    }
+}
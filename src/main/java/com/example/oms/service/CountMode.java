@@ -0,0 +1,13 @@
+package com.example.oms.service;
+
+/**
+ * How an order listing reports the total number of matching orders.
+ */
+public enum CountMode {
+    /** No total; the page only tells whether another one follows */
+    NONE,
+    /** Total from a per-status count cached by {@link OrderCountEstimator}; may be slightly stale */
+    ESTIMATE,
+    /** COUNT(*) on every call */
+    EXACT
+}
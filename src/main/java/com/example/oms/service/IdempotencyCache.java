@@ -0,0 +1,91 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of recently created orders by idempotency key, so a replayed request is answered
+ * from memory without touching the database. Entries expire after the idempotency TTL.
+ */
+public class IdempotencyCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expirations;
+    private final Counter evictions;
+
+    public IdempotencyCache(int maxSize, Duration ttl, Clock clock, MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.expirations = cacheCounter(meterRegistry, "expired");
+        this.evictions = cacheCounter(meterRegistry, "evicted");
+        // Access-ordered so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > IdempotencyCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+        Gauge.builder("order.idempotency.cache.size", this, IdempotencyCache::size)
+                .register(meterRegistry);
+    }
+
+    public synchronized Order get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAtMillis <= clock.millis()) {
+            entries.remove(key);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.order;
+    }
+
+    public synchronized void put(String key, Order order) {
+        entries.put(key, new Entry(order, clock.millis() + ttlMillis));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.idempotency.cache")
+                .description("Idempotency key cache lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        private final Order order;
+        private final long expiresAtMillis;
+
+        private Entry(Order order, long expiresAtMillis) {
+            this.order = order;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
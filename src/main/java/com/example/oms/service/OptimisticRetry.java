@@ -0,0 +1,101 @@
+package com.example.oms.service;
+
+import com.example.oms.exception.OrderVersionConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-write operation when it loses an optimistic locking race.
+ * Backoff grows exponentially from the initial delay up to the cap, with random jitter so that
+ * competing writers do not retry in lock step. Each attempt must re-read the order it modifies.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double jitter;
+    private final Counter attempts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    @Autowired
+    public OptimisticRetry(@Value("${order.concurrency.retry.max-attempts:5}") int maxAttempts,
+                           @Value("${order.concurrency.retry.initial-backoff-ms:5}") long initialBackoffMs,
+                           @Value("${order.concurrency.retry.max-backoff-ms:200}") long maxBackoffMs,
+                           @Value("${order.concurrency.retry.jitter:0.5}") double jitter,
+                           MeterRegistry meterRegistry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.jitter = jitter;
+        this.attempts = Counter.builder("order.concurrency.attempts")
+                .description("Optimistic read-modify-write attempts")
+                .register(meterRegistry);
+        this.retries = Counter.builder("order.concurrency.retries")
+                .description("Attempts repeated after a version conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("order.concurrency.exhausted")
+                .description("Operations that still conflicted after the last attempt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Default policy without exported metrics, for callers assembled outside the Spring context.
+     */
+    public static OptimisticRetry withDefaults() {
+        return new OptimisticRetry(5, 5, 200, 0.5, new SimpleMeterRegistry());
+    }
+
+    public <T> T execute(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return operation.get();
+            } catch (OrderVersionConflictException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                long delay = backoff(attempt);
+                log.debug("Version conflict on order {}, retrying in {} ms (attempt {}/{})",
+                        e.getOrderId(), delay, attempt + 1, maxAttempts);
+                sleep(delay);
+            }
+        }
+    }
+
+    long backoff(int attempt) {
+        long base = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        double spread = base * jitter;
+        return Math.max(0, Math.round(base - spread + ThreadLocalRandom.current().nextDouble() * 2 * spread));
+    }
+
+    private static void sleep(long delayMs) {
+        if (delayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
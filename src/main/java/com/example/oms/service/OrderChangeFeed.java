@@ -0,0 +1,207 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process fan-out of committed order changes to watchers such as WatchOrders streams.
+ * <p>
+ * Writers hand over their changes after commit without ever waiting: a full queue drops the batch and
+ * tells every watcher it missed changes. One dispatcher thread offers each change to the watchers whose
+ * filter matches. A change's customer comes from a bounded cache of customers seen at creation, and
+ * is read from the repository only when a watcher filters by customer. Watchers must not block; each
+ * keeps its own bounded buffer. Only changes committed on this node are seen.
+ */
+@Component
+public class OrderChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderChangeFeed.class);
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    /**
+     * Receives matching changes on the feed's dispatcher thread
+     */
+    public interface Watcher {
+        /**
+         * @param customerId The changed order's customer, or null if the order no longer exists
+         * @return false if the change was dropped because the watcher fell behind
+         */
+        boolean onChange(OrderLifecycleEvent event, @Nullable UUID customerId);
+
+        /**
+         * Changes were lost before they could be matched against this watcher's filter
+         */
+        void onMissed();
+    }
+
+    /**
+     * Stops deliveries to one watcher
+     */
+    public final class Subscription {
+        private final Watcher watcher;
+
+        private Subscription(Watcher watcher) {
+            this.watcher = watcher;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final BlockingQueue<Batch> queue;
+    private final Map<Subscription, OrderWatchFilter> subscriptions = new ConcurrentHashMap<>();
+    private final Cache<UUID, UUID> customers;
+    private final Counter droppedInFeed;
+    private final Counter droppedByWatchers;
+    private final Timer deliveryLag;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public OrderChangeFeed(OrderRepository orderRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${order.watch.queue-capacity:10000}") int queueCapacity,
+                           @Value("${order.watch.customer-cache-size:100000}") long customerCacheSize) {
+        this.orderRepository = orderRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.customers = Caffeine.newBuilder().maximumSize(customerCacheSize).build();
+        Gauge.builder("order.watch.watchers", subscriptions, Map::size)
+                .description("Watchers subscribed to order changes")
+                .register(meterRegistry);
+        Gauge.builder("order.watch.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.droppedInFeed = droppedCounter(meterRegistry, "feed");
+        this.droppedByWatchers = droppedCounter(meterRegistry, "watcher");
+        this.deliveryLag = Timer.builder("order.watch.delivery.lag")
+                .description("Time from an order change until it was offered to matching watchers")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String where) {
+        return Counter.builder("order.watch.dropped")
+                .description("Order changes not delivered to watchers, by where they were dropped")
+                .tag("where", where)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatch, "order-change-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    public Subscription subscribe(OrderWatchFilter filter, Watcher watcher) {
+        Subscription subscription = new Subscription(watcher);
+        subscriptions.put(subscription, filter);
+        return subscription;
+    }
+
+    /**
+     * Queues committed changes for the watchers; never blocks
+     * @param customerIds Customers the writer already knows, by order id, so they need not be looked up
+     */
+    public void publish(List<OrderLifecycleEvent> events, Map<UUID, UUID> customerIds) {
+        if (events.isEmpty() || subscriptions.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(new Batch(events, customerIds))) {
+            droppedInFeed.increment(events.size());
+            subscriptions.keySet().forEach(subscription -> subscription.watcher.onMissed());
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            Batch batch;
+            try {
+                batch = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == null) {
+                continue;
+            }
+            try {
+                deliver(batch);
+            } catch (RuntimeException e) {
+                log.warn("Dispatching order changes failed, watchers will resync: {}", e.toString());
+                subscriptions.keySet().forEach(subscription -> subscription.watcher.onMissed());
+            }
+        }
+    }
+
+    private void deliver(Batch batch) {
+        customers.putAll(batch.customerIds);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (OrderLifecycleEvent event : batch.events) {
+            // The repository is only read when a filter's outcome hinges on the customer; otherwise a
+            // cached customer is passed along when there is one
+            UUID customerId = subscriptions.values().stream().anyMatch(filter -> filter.needsCustomer(event))
+                    ? customers.get(event.getOrderId(), this::findCustomer)
+                    : customers.getIfPresent(event.getOrderId());
+            for (Map.Entry<Subscription, OrderWatchFilter> entry : subscriptions.entrySet()) {
+                if (entry.getValue().matches(event, customerId)
+                        && !entry.getKey().watcher.onChange(event, customerId)) {
+                    droppedByWatchers.increment();
+                }
+            }
+            deliveryLag.record(Duration.between(event.getOccurredAt(), now));
+        }
+    }
+
+    // A customer never changes, so whatever was read once stays valid
+    @Nullable
+    private UUID findCustomer(UUID orderId) {
+        return orderRepository.findById(orderId).map(Order::getCustomerId).orElse(null);
+    }
+
+    private static final class Batch {
+        private final List<OrderLifecycleEvent> events;
+        private final Map<UUID, UUID> customerIds;
+
+        private Batch(List<OrderLifecycleEvent> events, Map<UUID, UUID> customerIds) {
+            this.events = events;
+            this.customerIds = customerIds;
+        }
+    }
+}
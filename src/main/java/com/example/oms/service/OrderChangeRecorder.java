@@ -0,0 +1,96 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.InMemoryOrderHistoryRepository;
+import com.example.oms.repository.InMemoryOrderOutboxRepository;
+import com.example.oms.repository.OrderOutboxRepository;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records every change written to orders, in the writer's transaction: a lifecycle event in the outbox
+ * for downstream systems, and an entry in the order's history. Writers call this right after changing
+ * the orders rows, so a change and its records commit or roll back together. Creations and status
+ * changes are also published to the {@link OrderChangeFeed} once the transaction has committed.
+ */
+@Component
+public class OrderChangeRecorder {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderHistoryService historyService;
+    private final OrderChangeFeed changeFeed;
+
+    public OrderChangeRecorder(OrderOutboxRepository outboxRepository, OrderHistoryService historyService,
+                               @Nullable OrderChangeFeed changeFeed) {
+        this.outboxRepository = outboxRepository;
+        this.historyService = historyService;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * A recorder that keeps everything in memory, for services built outside the application context
+     */
+    public static OrderChangeRecorder inMemory() {
+        return new OrderChangeRecorder(new InMemoryOrderOutboxRepository(),
+                new OrderHistoryService(new InMemoryOrderHistoryRepository(), OrderHistoryService.DEFAULT_SNAPSHOT_INTERVAL),
+                null);
+    }
+
+    public void created(List<Order> orders, @Nullable String by) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<OrderLifecycleEvent> events = orders.stream().map(OrderLifecycleEvent::created).toList();
+        outboxRepository.append(events);
+        historyService.record(orders.stream().map(order -> OrderEvent.created(order, by)).toList());
+        Map<UUID, UUID> customerIds = new HashMap<>(orders.size() * 2);
+        orders.forEach(order -> customerIds.put(order.getId(), order.getCustomerId()));
+        publishAfterCommit(events, customerIds);
+    }
+
+    /**
+     * @param by Who made the change, or null when the orders' last modifier was left as it was
+     */
+    public void statusChanged(Collection<UUID> orderIds, OrderStatus status, Instant at, @Nullable String by) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<OrderLifecycleEvent> events = orderIds.stream()
+                .map(id -> OrderLifecycleEvent.statusChanged(id, status, at))
+                .toList();
+        outboxRepository.append(events);
+        historyService.record(orderIds.stream()
+                .map(id -> OrderEvent.statusChanged(id, status, at, by))
+                .toList());
+        publishAfterCommit(events, Map.of());
+    }
+
+    // Watchers only ever see committed changes; without a transaction the change is already durable
+    private void publishAfterCommit(List<OrderLifecycleEvent> events, Map<UUID, UUID> customerIds) {
+        if (changeFeed == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeFeed.publish(events, customerIds);
+                }
+            });
+        } else {
+            changeFeed.publish(events, customerIds);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.oms.service;
+
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Order counts for {@link CountMode#ESTIMATE} listings. Each status (and the unfiltered total) is
+ * counted at most once per TTL, so listing traffic no longer runs a COUNT(*) per request.
+ */
+@Component
+public class OrderCountEstimator {
+
+    private static final String ALL = "*";
+
+    private final OrderRepository orderRepository;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final ConcurrentMap<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderCountEstimator(OrderRepository orderRepository,
+                               @Value("${order.listing.count-cache-ttl-ms:30000}") long ttlMs) {
+        this(orderRepository, Duration.ofMillis(ttlMs), Clock.systemUTC());
+    }
+
+    public OrderCountEstimator(OrderRepository orderRepository, Duration ttl, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public static OrderCountEstimator withDefaults(OrderRepository orderRepository) {
+        return new OrderCountEstimator(orderRepository, Duration.ofSeconds(30), Clock.systemUTC());
+    }
+
+    /**
+     * @param status Only orders in this status, or all orders when null
+     * @return The count as of at most one TTL ago
+     */
+    public long estimate(@Nullable OrderStatus status) {
+        long now = clock.millis();
+        // compute serialises refreshes per key, so an expired entry is recounted by one caller only
+        return counts.compute(status == null ? ALL : status.name(), (key, cached) ->
+                cached != null && cached.expiresAtMillis > now
+                        ? cached
+                        : new CachedCount(orderRepository.count(status), now + ttlMillis)
+        ).value;
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final long expiresAtMillis;
+
+        private CachedCount(long value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+
+/**
+ * Outcome of one order in a batch create: either the created order or the reason it was rejected.
+ */
+public final class OrderCreationResult {
+
+    private final int index;
+    private final Order order;
+    private final String error;
+
+    private OrderCreationResult(int index, Order order, String error) {
+        this.index = index;
+        this.order = order;
+        this.error = error;
+    }
+
+    public static OrderCreationResult created(int index, Order order) {
+        return new OrderCreationResult(index, order, null);
+    }
+
+    public static OrderCreationResult failed(int index, String error) {
+        return new OrderCreationResult(index, null, error);
+    }
+
+    /**
+     * Position of the order in the submitted batch
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isCreated() {
+        return order != null;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.oms.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a local file line by line through a {@link FileChannel} and one reused buffer. It tracks the
+ * byte offset of the next line, so an import can checkpoint that offset and later resume from it.
+ * Lines end with \n or \r\n and are decoded as UTF-8; a leading byte order mark is skipped.
+ */
+final class OrderFileReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] line = new byte[512];
+    private long offset;
+
+    OrderFileReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    /**
+     * Byte offset of the next line
+     */
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * Continues reading at {@code offset}, which must be the start of a line
+     */
+    void seek(long offset) throws IOException {
+        channel.position(offset);
+        buffer.clear().flip();
+        this.offset = offset;
+    }
+
+    /**
+     * @return the next line without its line terminator, or null at the end of the file
+     */
+    String readLine() throws IOException {
+        long start = offset;
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return offset == start ? null : decode(start, length);
+                }
+                continue;
+            }
+            byte b = buffer.get();
+            offset++;
+            if (b == '\n') {
+                return decode(start, length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    private String decode(long start, int length) {
+        int from = 0;
+        if (start == 0 && length >= 3 && (line[0] & 0xFF) == 0xEF && (line[1] & 0xFF) == 0xBB
+                && (line[2] & 0xFF) == 0xBF) {
+            from = 3;
+        }
+        if (length > from && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, from, length - from, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderSnapshot;
+import com.example.oms.repository.OrderHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the append-only history of every order and rebuilds an order as it was at any point in time.
+ * <p>
+ * Each change is numbered in its order's own sequence, starting with 1 for CREATED, and every
+ * {@code order.history.snapshot-interval}-th event also stores a snapshot of the order. Rebuilding an
+ * order therefore reads its latest snapshot before the requested time and replays fewer than that
+ * many events after it, however long the order's history has grown.
+ * <p>
+ * Events are numbered from the order's last recorded sequence in the writer's transaction, after the
+ * writer has changed the order's row, so in the database writers of one order are already serialized
+ * by that row's lock; the in-memory store, which has no row locks, numbers them under its own lock.
+ * Orders without a CREATED event, such as orders created before history was recorded or loaded by a
+ * file import, get no history.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderHistoryService {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 20;
+
+    private final OrderHistoryRepository historyRepository;
+    private final int snapshotInterval;
+
+    public OrderHistoryService(OrderHistoryRepository historyRepository,
+                               @Value("${order.history.snapshot-interval:20}") int snapshotInterval) {
+        if (snapshotInterval < 2) {
+            throw new IllegalArgumentException("order.history.snapshot-interval must be at least 2");
+        }
+        this.historyRepository = historyRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Numbers and appends events in the caller's transaction, with one lookup of the orders' last
+     * sequences for the whole batch, and snapshots every order whose history reached a multiple of the
+     * snapshot interval
+     */
+    @Transactional
+    public void record(List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<UUID> snapshotDue = new ArrayList<>();
+        historyRepository.numberAndAppend(() -> {
+            Map<UUID, Long> last = new HashMap<>(historyRepository.lastSequences(events.stream()
+                    .filter(event -> event.getType() != OrderEvent.Type.CREATED)
+                    .map(OrderEvent::getOrderId)
+                    .distinct()
+                    .toList()));
+            List<OrderEvent> numbered = new ArrayList<>(events.size());
+            for (OrderEvent event : events) {
+                long sequence;
+                if (event.getType() == OrderEvent.Type.CREATED) {
+                    sequence = 1;
+                } else if (last.containsKey(event.getOrderId())) {
+                    sequence = last.get(event.getOrderId()) + 1;
+                } else {
+                    continue;
+                }
+                last.put(event.getOrderId(), sequence);
+                numbered.add(event.withSequence(sequence));
+                if (sequence % snapshotInterval == 0) {
+                    snapshotDue.add(event.getOrderId());
+                }
+            }
+            historyRepository.append(numbered);
+        });
+        for (UUID orderId : snapshotDue) {
+            // The previous snapshot is at most one interval back, so this replays the events just appended
+            Optional<OrderSnapshot> snapshot = rebuild(orderId, null);
+            snapshot.ifPresent(taken -> historyRepository.saveSnapshot(orderId, taken));
+        }
+    }
+
+    /**
+     * @return the order as it was at {@code at}, or empty if it did not exist then or has no history
+     */
+    public Optional<Order> stateAt(UUID orderId, Instant at) {
+        return rebuild(orderId, at).map(OrderSnapshot::getState);
+    }
+
+    // Latest snapshot at or before the given time, rolled forward over the events after it
+    private Optional<OrderSnapshot> rebuild(UUID orderId, @Nullable Instant at) {
+        Optional<OrderSnapshot> snapshot = historyRepository.findLatestSnapshot(orderId, at);
+        long after = snapshot.map(OrderSnapshot::getSequence).orElse(0L);
+        List<OrderEvent> events = historyRepository.findEvents(orderId, after, at);
+        if (snapshot.isEmpty() && (events.isEmpty() || events.get(0).getType() != OrderEvent.Type.CREATED)) {
+            return Optional.empty();
+        }
+        Order state = snapshot.map(OrderSnapshot::getState).orElse(null);
+        OrderSnapshot current = snapshot.orElse(null);
+        for (OrderEvent event : events) {
+            state = event.applyTo(state);
+            current = new OrderSnapshot(event.getSequence(), event.getOccurredAt(), state);
+        }
+        return Optional.of(current);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Idempotent order creation. The first request with a given key creates the order and records the
+ * key in the same transaction; replays within the TTL get the original order back, from the
+ * in-process cache when possible and from the key table otherwise.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIdempotencyService.class);
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionOperations transactionOperations;
+    private final IdempotencyCache cache;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Counter storeReplays;
+
+    @Autowired
+    public OrderIdempotencyService(OrderService orderService,
+                                   IdempotencyKeyRepository idempotencyKeyRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${order.idempotency.ttl-ms:86400000}") long ttlMs,
+                                   @Value("${order.idempotency.cache-size:10000}") int cacheSize) {
+        this(orderService, idempotencyKeyRepository, new TransactionTemplate(transactionManager),
+                new IdempotencyCache(cacheSize, Duration.ofMillis(ttlMs), Clock.systemUTC(), meterRegistry),
+                Duration.ofMillis(ttlMs), Clock.systemUTC(), meterRegistry);
+    }
+
+    public OrderIdempotencyService(OrderService orderService,
+                                   IdempotencyKeyRepository idempotencyKeyRepository,
+                                   TransactionOperations transactionOperations,
+                                   IdempotencyCache cache,
+                                   Duration ttl,
+                                   Clock clock,
+                                   MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionOperations = transactionOperations;
+        this.cache = cache;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.storeReplays = Counter.builder("order.idempotency.replays")
+                .description("Replayed create requests answered from the idempotency key table")
+                .tag("source", "store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates an order, or returns the order previously created with the same idempotency key
+     * @param order The order to create
+     * @param idempotencyKey Client supplied key; null or blank creates the order unconditionally
+     * @return The created or replayed order
+     */
+    public Order createOrder(Order order, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return orderService.createOrder(order);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new OrderService.InvalidOrderOperationException(
+                    "Idempotency key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        Order cached = cache.get(idempotencyKey);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<Order> replay = findPersisted(idempotencyKey);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+        Instant now = clock.instant();
+        try {
+            Order created = transactionOperations.execute(status -> {
+                Order saved = orderService.createOrder(order);
+                idempotencyKeyRepository.register(idempotencyKey, saved.getId(), now, now.minus(ttl));
+                return saved;
+            });
+            cache.put(idempotencyKey, created);
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key won; our order was rolled back with the key insert
+            log.debug("Idempotency key {} registered concurrently, replaying the winner", idempotencyKey);
+            return findPersisted(idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        int removed = idempotencyKeyRepository.deleteCreatedBefore(clock.instant().minus(ttl));
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private Optional<Order> findPersisted(String idempotencyKey) {
+        return idempotencyKeyRepository.findOrderId(idempotencyKey, clock.instant().minus(ttl))
+                .flatMap(orderService::getOrder)
+                .map(order -> {
+                    storeReplays.increment();
+                    cache.put(idempotencyKey, order);
+                    return order;
+                });
+    }
+}
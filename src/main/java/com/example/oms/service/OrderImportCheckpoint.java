@@ -0,0 +1,104 @@
+package com.example.oms.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Progress of an import: where the next chunk starts in the file and what has been imported so far.
+ * It is stored next to the file as {@code <file>.checkpoint} after every committed chunk, so an import
+ * that failed or was stopped resumes after the last chunk it wrote.
+ */
+final class OrderImportCheckpoint {
+
+    private final long offset;
+    private final long line;
+    private final long imported;
+    private final long rejected;
+    private final long duplicates;
+
+    OrderImportCheckpoint(long offset, long line, long imported, long rejected, long duplicates) {
+        this.offset = offset;
+        this.line = line;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.duplicates = duplicates;
+    }
+
+    static OrderImportCheckpoint start() {
+        return new OrderImportCheckpoint(0, 0, 0, 0, 0);
+    }
+
+    static Path pathFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    static Optional<OrderImportCheckpoint> read(Path file) throws IOException {
+        Path path = pathFor(file);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        return Optional.of(new OrderImportCheckpoint(
+                number(properties, "offset"),
+                number(properties, "line"),
+                number(properties, "imported"),
+                number(properties, "rejected"),
+                number(properties, "duplicates")));
+    }
+
+    private static long number(Properties properties, String key) {
+        return Long.parseLong(properties.getProperty(key, "0"));
+    }
+
+    /**
+     * Replaces the stored checkpoint atomically, so a crash never leaves half a checkpoint behind
+     */
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("line", Long.toString(line));
+        properties.setProperty("imported", Long.toString(imported));
+        properties.setProperty("rejected", Long.toString(rejected));
+        properties.setProperty("duplicates", Long.toString(duplicates));
+        Path path = pathFor(file);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(out, "Order import of " + file.getFileName());
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void delete(Path file) throws IOException {
+        Files.deleteIfExists(pathFor(file));
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    long getLine() {
+        return line;
+    }
+
+    long getImported() {
+        return imported;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    long getDuplicates() {
+        return duplicates;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.oms.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point for {@link OrderImportService}: started with {@code --order.import.file=<path>},
+ * the application imports that file (any path, unlike the admin endpoint) and exits with status 0 if the
+ * import ran to the end, or 1 if it failed, in which case running it again resumes from the checkpoint.
+ * Add {@code --spring.main.web-application-type=none} to skip starting the HTTP server.
+ */
+@Component
+@ConditionalOnProperty(name = "order.import.file")
+public class OrderImportCommand implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderImportCommand.class);
+
+    private final OrderImportService orderImportService;
+    private final ConfigurableApplicationContext context;
+    private final String file;
+    private final String format;
+    private final boolean resume;
+
+    public OrderImportCommand(OrderImportService orderImportService,
+                              ConfigurableApplicationContext context,
+                              @Value("${order.import.file}") String file,
+                              @Value("${order.import.format:}") String format,
+                              @Value("${order.import.resume:true}") boolean resume) {
+        this.orderImportService = orderImportService;
+        this.context = context;
+        this.file = file;
+        this.format = format;
+        this.resume = resume;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int status;
+        try {
+            OrderImportResult result = orderImportService.importFile(Paths.get(file),
+                    format.isBlank() ? null : OrderImportFormat.parse(format), resume);
+            result.getRejections().forEach(rejection ->
+                    log.warn("{} line {}: {}", result.getFile(), rejection.getLine(), rejection.getError()));
+            if (result.getRejected() > result.getRejections().size()) {
+                log.warn("{} more rejected records not listed", result.getRejected() - result.getRejections().size());
+            }
+            status = 0;
+        } catch (RuntimeException e) {
+            log.error("Import of {} failed", file, e);
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
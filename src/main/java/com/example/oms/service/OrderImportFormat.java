@@ -0,0 +1,45 @@
+package com.example.oms.service;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats accepted by {@link OrderImportService}, the same ones GET /api/orders/export writes,
+ * so an export of one environment can be imported into another.
+ */
+public enum OrderImportFormat {
+    /**
+     * A header row, then one row per item with the order's columns repeated; consecutive rows with the
+     * same order_id form one order. Required columns: customer_id, product_id, quantity, unit_price.
+     * Records are one line each: quoted fields may hold separators and quotes but not line breaks.
+     */
+    CSV,
+    /** One order per line, as in {@code OrderResponse} */
+    NDJSON;
+
+    /**
+     * @throws OrderService.InvalidOrderOperationException if the extension is not .csv, .ndjson or .jsonl
+     */
+    public static OrderImportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new OrderService.InvalidOrderOperationException(
+                "Cannot tell the format of " + file.getFileName() + ", give it as csv or ndjson");
+    }
+
+    /**
+     * @throws OrderService.InvalidOrderOperationException if the name is not csv or ndjson
+     */
+    public static OrderImportFormat parse(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new OrderService.InvalidOrderOperationException("format must be one of csv, ndjson");
+        }
+    }
+}
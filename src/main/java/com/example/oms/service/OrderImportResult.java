@@ -0,0 +1,99 @@
+package com.example.oms.service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of an import. The counts cover the whole file, including chunks imported before a resume;
+ * the elapsed time and rate cover only this run.
+ */
+public final class OrderImportResult {
+
+    /**
+     * A record that was not imported, by the number of its first line in the file
+     */
+    public static final class Rejection {
+        private final long line;
+        private final String error;
+
+        Rejection(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final String file;
+    private final long imported;
+    private final long rejected;
+    private final long duplicates;
+    private final long resumedAtLine;
+    private final long importedThisRun;
+    private final Duration elapsed;
+    private final List<Rejection> rejections;
+
+    OrderImportResult(String file, long imported, long rejected, long duplicates, long resumedAtLine,
+                      long importedThisRun, Duration elapsed, List<Rejection> rejections) {
+        this.file = file;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.duplicates = duplicates;
+        this.resumedAtLine = resumedAtLine;
+        this.importedThisRun = importedThisRun;
+        this.elapsed = elapsed;
+        this.rejections = List.copyOf(rejections);
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Records that could not be parsed or failed validation
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Orders skipped because their id already exists, e.g. a chunk that was written just before an
+     * interrupted import could record its checkpoint
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Last line covered by the checkpoint this run resumed from, or 0 for a run from the start
+     */
+    public long getResumedAtLine() {
+        return resumedAtLine;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getOrdersPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? importedThisRun : importedThisRun * 1000.0 / millis;
+    }
+
+    /**
+     * The first rejections of this run, at most {@link OrderImportService#MAX_REPORTED_REJECTIONS}
+     */
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk import of orders from a local CSV or NDJSON file, for migrating a region or replaying an
+ * upstream batch without going through the API one order at a time.
+ * <p>
+ * The file is read sequentially in chunks of {@code order.import.chunk-size} orders. The records of a
+ * chunk are parsed and validated in parallel, while the previous chunk is written with one
+ * {@link OrderRepository#insertAll} call, i.e. batched multi-row INSERTs and no per-order merge. A
+ * checkpoint is stored after every committed chunk, so an interrupted import resumes where it stopped.
+ * Orders keep the id, status and creation time given in the file; an order without an id gets one
+ * derived from the file name and its line, so a chunk replayed on resume collides with what it
+ * already wrote instead of being imported twice. PENDING orders are left to the
+ * scheduler's recovery sweep rather than being handed to the pipeline one by one.
+ */
+@Service
+public class OrderImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderImportService.class);
+
+    static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final Path importDirectory;
+    private final int chunkSize;
+    private final int parallelism;
+    private final ExecutorService validators;
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+    private final Counter importedOrders;
+    private final Counter rejectedOrders;
+    private final Counter duplicateOrders;
+
+    public OrderImportService(OrderRepository orderRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.import.directory:imports}") String importDirectory,
+                              @Value("${order.import.chunk-size:1000}") int chunkSize,
+                              @Value("${order.import.parallelism:0}") int parallelism) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("order.import.chunk-size must be positive");
+        }
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.importDirectory = Paths.get(importDirectory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.validators = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "order-import-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedOrders = counter(meterRegistry, "imported");
+        this.rejectedOrders = counter(meterRegistry, "rejected");
+        this.duplicateOrders = counter(meterRegistry, "duplicate");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("order.import.orders")
+                .description("Orders read by file imports, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        validators.shutdownNow();
+    }
+
+    /**
+     * Resolves a file name against {@code order.import.directory}, the only place the admin endpoint
+     * may import from
+     * @throws OrderService.InvalidOrderOperationException if the name points outside the directory
+     */
+    public Path resolveInImportDirectory(String name) {
+        Path file = importDirectory.resolve(name).normalize();
+        if (!file.startsWith(importDirectory) || file.equals(importDirectory)) {
+            throw new OrderService.InvalidOrderOperationException("file must name a file in the import directory");
+        }
+        return file;
+    }
+
+    /**
+     * Imports every order in {@code file}; records that cannot be parsed or fail validation are counted
+     * and reported but do not stop the import
+     * @param format The file's format, or null to tell it from the file name
+     * @param resume Whether to continue from the file's checkpoint if it has one, rather than start over
+     * @throws OrderService.InvalidOrderOperationException if the file does not exist, its format is
+     *         unknown, or it is already being imported
+     */
+    public OrderImportResult importFile(Path file, OrderImportFormat format, boolean resume) {
+        if (!Files.isRegularFile(file)) {
+            throw new OrderService.InvalidOrderOperationException("No such file: " + file);
+        }
+        OrderImportFormat fileFormat = format != null ? format : OrderImportFormat.forFile(file);
+        Path key = file.toAbsolutePath().normalize();
+        if (!running.add(key)) {
+            throw new OrderService.InvalidOrderOperationException("An import of " + file + " is already running");
+        }
+        try {
+            OrderImportCheckpoint from = resume
+                    ? OrderImportCheckpoint.read(file).orElse(OrderImportCheckpoint.start())
+                    : OrderImportCheckpoint.start();
+            return run(file, fileFormat, from);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Import of " + file + " failed", e);
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    private OrderImportResult run(Path file, OrderImportFormat format, OrderImportCheckpoint from) throws IOException {
+        if (from.getOffset() > 0) {
+            log.info("Resuming import of {} after line {} ({} orders imported so far)",
+                    file, from.getLine(), from.getImported());
+        }
+        long started = System.nanoTime();
+        long lastReport = started;
+        long imported = from.getImported();
+        long rejected = from.getRejected();
+        long duplicates = from.getDuplicates();
+        List<OrderImportResult.Rejection> rejections = new ArrayList<>();
+
+        try (OrderRecordReader reader = OrderRecordReader.open(file, format, objectMapper, from)) {
+            String fileName = file.getFileName().toString();
+            List<OrderRecordReader.Record> records = readChunk(reader);
+            List<Future<List<Parsed>>> parsing = parseAsync(reader, fileName, records);
+            while (!records.isEmpty()) {
+                List<Parsed> parsed = join(parsing);
+                OrderRecordReader.Record last = records.get(records.size() - 1);
+
+                // The next chunk is parsed and validated while this one is written
+                records = readChunk(reader);
+                parsing = parseAsync(reader, fileName, records);
+
+                List<Order> valid = new ArrayList<>(parsed.size());
+                for (Parsed outcome : parsed) {
+                    if (outcome.order != null) {
+                        valid.add(outcome.order);
+                    } else {
+                        rejected++;
+                        rejectedOrders.increment();
+                        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                            rejections.add(new OrderImportResult.Rejection(outcome.line, outcome.error));
+                        }
+                    }
+                }
+                int inserted = write(valid);
+                imported += inserted;
+                duplicates += valid.size() - inserted;
+                new OrderImportCheckpoint(last.endOffset, last.endLine, imported, rejected, duplicates).write(file);
+
+                long now = System.nanoTime();
+                if (now - lastReport >= PROGRESS_INTERVAL.toNanos()) {
+                    lastReport = now;
+                    log.info("Import of {}: line {}, {} orders imported, {} rejected, {} duplicates, {} orders/s",
+                            file, last.endLine, imported, rejected, duplicates,
+                            (imported - from.getImported()) * 1_000_000_000L / (now - started));
+                }
+            }
+        }
+        OrderImportCheckpoint.delete(file);
+
+        OrderImportResult result = new OrderImportResult(file.getFileName().toString(), imported, rejected,
+                duplicates, from.getLine(), imported - from.getImported(),
+                Duration.ofNanos(System.nanoTime() - started), rejections);
+        log.info("Imported {}: {} orders imported, {} rejected, {} duplicates in {} ms ({} orders/s)",
+                file, imported, rejected, duplicates, result.getElapsed().toMillis(),
+                Math.round(result.getOrdersPerSecond()));
+        return result;
+    }
+
+    private List<OrderRecordReader.Record> readChunk(OrderRecordReader reader) throws IOException {
+        List<OrderRecordReader.Record> records = new ArrayList<>(chunkSize);
+        OrderRecordReader.Record record;
+        while (records.size() < chunkSize && (record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    // Splits the chunk into one contiguous slice per validator thread, so results come back in file order
+    private List<Future<List<Parsed>>> parseAsync(OrderRecordReader reader, String fileName,
+                                                  List<OrderRecordReader.Record> records) {
+        List<Future<List<Parsed>>> slices = new ArrayList<>(parallelism);
+        int sliceSize = Math.max(1, (records.size() + parallelism - 1) / parallelism);
+        for (int from = 0; from < records.size(); from += sliceSize) {
+            List<OrderRecordReader.Record> slice = records.subList(from, Math.min(from + sliceSize, records.size()));
+            slices.add(validators.submit(() -> slice.stream().map(record -> parse(reader, fileName, record)).toList()));
+        }
+        return slices;
+    }
+
+    private Parsed parse(OrderRecordReader reader, String fileName, OrderRecordReader.Record record) {
+        try {
+            Order order = reader.parse(record.lines);
+            String error = OrderService.validateNewOrder(order);
+            if (error != null) {
+                return new Parsed(record.line, null, error);
+            }
+            if (order.getId() == null) {
+                order.setId(idFor(fileName, record.line));
+            }
+            return new Parsed(record.line, order, null);
+        } catch (IllegalArgumentException e) {
+            return new Parsed(record.line, null, e.getMessage());
+        }
+    }
+
+    // The same record always gets the same id, whichever run of the import parses it
+    private static UUID idFor(String fileName, long line) {
+        return UUID.nameUUIDFromBytes((fileName + ':' + line).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Parsed> join(List<Future<List<Parsed>>> slices) {
+        List<Parsed> parsed = new ArrayList<>();
+        try {
+            for (Future<List<Parsed>> slice : slices) {
+                parsed.addAll(slice.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing import records failed", e.getCause());
+        }
+        return parsed;
+    }
+
+    /**
+     * @return the number of orders inserted; the others already existed
+     */
+    private int write(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        try {
+            int inserted = orderRepository.insertAll(orders).size();
+            importedOrders.increment(inserted);
+            return inserted;
+        } catch (DataIntegrityViolationException e) {
+            // Some ids exist already, typically from a chunk committed just before an interrupted import
+            // wrote its checkpoint: the chunk was rolled back, so insert it order by order
+            int inserted = 0;
+            for (Order order : orders) {
+                try {
+                    orderRepository.insert(order);
+                    inserted++;
+                    importedOrders.increment();
+                } catch (DataIntegrityViolationException duplicate) {
+                    duplicateOrders.increment();
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static final class Parsed {
+        private final long line;
+        private final Order order;
+        private final String error;
+
+        Parsed(long line, Order order, String error) {
+            this.line = line;
+            this.order = order;
+            this.error = error;
+        }
+    }
+}
@@ -2,25 +2,38 @@ package com.example.oms.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+/**
+ * Recovery sweep for pending orders. New orders are normally moved by the
+ * {@link com.example.oms.pipeline.OrderPipeline} right after creation; this catches anything the
+ * pipeline dropped (saturation, restarts) or that was created while it was disabled.
+ */
 @Component
 public class OrderProcessingScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(OrderProcessingScheduler.class);
 
     private final OrderService orderService;
+    private final int chunkSize;
 
-    public OrderProcessingScheduler(OrderService orderService) {
+    public OrderProcessingScheduler(OrderService orderService,
+                                    @Value("${order.scheduler.chunk-size:1000}") int chunkSize) {
         this.orderService = orderService;
+        this.chunkSize = chunkSize;
     }
 
     @Scheduled(fixedRateString = "${order.scheduler.interval-ms:300000}")
     public void transitionPendingToProcessing() {
-        int updated = orderService.processPendingOrders();
+        List<Integer> chunks = orderService.processPendingOrders(chunkSize);
+        int updated = chunks.stream().mapToInt(Integer::intValue).sum();
         if (updated > 0) {
-            log.info("Order scheduler transitioned {} orders from PENDING to PROCESSING", updated);
+            log.info("Recovery sweep transitioned {} orders from PENDING to PROCESSING in {} chunks {}",
+                    updated, chunks.size(), chunks);
         }
     }
 }
@@ -0,0 +1,300 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Splits an import file into records, one per order, and turns a record into an {@link Order}.
+ * {@link #next()} reads sequentially, but {@link #parse} is thread-safe, so the records of a chunk can be
+ * parsed and validated in parallel. Parse errors are {@link IllegalArgumentException}s naming the field.
+ */
+abstract class OrderRecordReader implements Closeable {
+
+    /**
+     * The lines of one order, and the position just after them for checkpoints
+     */
+    static final class Record {
+        final long line;
+        final List<String> lines = new ArrayList<>(1);
+        long endOffset;
+        long endLine;
+
+        Record(long line) {
+            this.line = line;
+        }
+    }
+
+    private final OrderFileReader file;
+    private long lineNumber;
+    private String pending;
+    private long pendingOffset;
+    private long pendingLine;
+
+    OrderRecordReader(OrderFileReader file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens {@code path} and, for a resumed import, moves to the checkpoint's offset; a CSV header is
+     * always read from the start of the file first
+     */
+    static OrderRecordReader open(Path path, OrderImportFormat format, ObjectMapper objectMapper,
+                                  OrderImportCheckpoint from) throws IOException {
+        OrderFileReader file = new OrderFileReader(path);
+        try {
+            OrderRecordReader reader = switch (format) {
+                case CSV -> new Csv(file);
+                case NDJSON -> new Ndjson(file, objectMapper);
+            };
+            if (from.getOffset() > file.offset()) {
+                file.seek(from.getOffset());
+                reader.lineNumber = from.getLine();
+            }
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next order's lines, or null at the end of the file
+     */
+    Record next() throws IOException {
+        if (pending == null && !readPending()) {
+            return null;
+        }
+        Record record = new Record(pendingLine);
+        record.lines.add(pending);
+        String key = groupKey(pending);
+        while (true) {
+            if (!readPending()) {
+                record.endOffset = file.offset();
+                record.endLine = lineNumber;
+                return record;
+            }
+            if (key == null || !key.equals(groupKey(pending))) {
+                record.endOffset = pendingOffset;
+                record.endLine = pendingLine - 1;
+                return record;
+            }
+            record.lines.add(pending);
+        }
+    }
+
+    // Reads the next non-blank line into pending; false at the end of the file
+    private boolean readPending() throws IOException {
+        while (true) {
+            pendingOffset = file.offset();
+            String line = file.readLine();
+            if (line == null) {
+                pending = null;
+                return false;
+            }
+            lineNumber++;
+            if (!line.isBlank()) {
+                pending = line;
+                pendingLine = lineNumber;
+                return true;
+            }
+        }
+    }
+
+    String readHeader() throws IOException {
+        String header = file.readLine();
+        if (header == null) {
+            throw new OrderService.InvalidOrderOperationException("The file is empty, expected a CSV header");
+        }
+        lineNumber++;
+        return header;
+    }
+
+    /**
+     * Consecutive lines with the same non-null key belong to one order
+     */
+    abstract String groupKey(String line);
+
+    abstract Order parse(List<String> lines);
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    static <T> T value(String text, String field, Function<String, T> parser) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(text.trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(field + ": invalid value '" + text + "'");
+        }
+    }
+
+    private static final class Csv extends OrderRecordReader {
+        private final int orderId;
+        private final int customerId;
+        private final int status;
+        private final int createdAt;
+        private final int productId;
+        private final int productName;
+        private final int quantity;
+        private final int unitPrice;
+
+        Csv(OrderFileReader file) throws IOException {
+            super(file);
+            List<String> columns = split(readHeader()).stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            orderId = columns.indexOf("order_id");
+            customerId = required(columns, "customer_id");
+            status = columns.indexOf("status");
+            createdAt = columns.indexOf("created_at");
+            productId = required(columns, "product_id");
+            productName = columns.indexOf("product_name");
+            quantity = required(columns, "quantity");
+            unitPrice = required(columns, "unit_price");
+        }
+
+        private static int required(List<String> columns, String column) {
+            int index = columns.indexOf(column);
+            if (index < 0) {
+                throw new OrderService.InvalidOrderOperationException("The CSV header has no " + column + " column");
+            }
+            return index;
+        }
+
+        @Override
+        String groupKey(String line) {
+            if (orderId < 0) {
+                return null;
+            }
+            String key;
+            if (orderId == 0 && !line.startsWith("\"")) {
+                // Exports put order_id first, where it can be cut out without splitting the whole row
+                int comma = line.indexOf(',');
+                key = comma < 0 ? line : line.substring(0, comma);
+            } else {
+                key = field(split(line), orderId);
+            }
+            return key.isBlank() ? null : key.trim();
+        }
+
+        @Override
+        Order parse(List<String> lines) {
+            List<String> first = split(lines.get(0));
+            UUID id = value(field(first, orderId), "order_id", UUID::fromString);
+            UUID customer = value(field(first, customerId), "customer_id", UUID::fromString);
+            OrderStatus orderStatus = value(field(first, status), "status", OrderStatus::valueOf);
+            Instant created = value(field(first, createdAt), "created_at", Instant::parse);
+            List<OrderItem> items = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                List<String> row = i == 0 ? first : split(lines.get(i));
+                String product = field(row, productId);
+                String count = field(row, quantity);
+                // An exported order without items is one row with empty item columns
+                if (product.isBlank() && count.isBlank()) {
+                    continue;
+                }
+                Integer itemQuantity = value(count, "quantity", Integer::valueOf);
+                items.add(new OrderItem(product.trim(), field(row, productName),
+                        itemQuantity == null ? 0 : itemQuantity,
+                        value(field(row, unitPrice), "unit_price", BigDecimal::new)));
+            }
+            return new Order(id, customer, created, orderStatus, items);
+        }
+
+        private static String field(List<String> row, int column) {
+            return column >= 0 && column < row.size() ? row.get(column) : "";
+        }
+
+        // RFC 4180 fields within one line: quoted fields may hold commas and doubled quotes
+        static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class Ndjson extends OrderRecordReader {
+        private final ObjectReader json;
+
+        Ndjson(OrderFileReader file, ObjectMapper objectMapper) {
+            super(file);
+            this.json = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        }
+
+        @Override
+        String groupKey(String line) {
+            return null;
+        }
+
+        @Override
+        Order parse(List<String> lines) {
+            JsonNode node;
+            try {
+                node = json.readTree(lines.get(0));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+            List<OrderItem> items = new ArrayList<>();
+            for (JsonNode item : node.path("items")) {
+                Integer itemQuantity = value(text(item, "quantity"), "quantity", Integer::valueOf);
+                items.add(new OrderItem(text(item, "productId"), text(item, "productName"),
+                        itemQuantity == null ? 0 : itemQuantity,
+                        value(text(item, "unitPrice"), "unitPrice", BigDecimal::new)));
+            }
+            return new Order(
+                    value(text(node, "id"), "id", UUID::fromString),
+                    value(text(node, "customerId"), "customerId", UUID::fromString),
+                    value(text(node, "createdAt"), "createdAt", Instant::parse),
+                    value(text(node, "status"), "status", OrderStatus::valueOf),
+                    items);
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
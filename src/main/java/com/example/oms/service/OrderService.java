@@ -2,30 +2,102 @@ package com.example.oms.service;
 
 import com.example.oms.exception.ResourceNotFoundException;
 import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderIdGenerator;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
+import com.example.oms.pipeline.OrderPipeline;
 import com.example.oms.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Transactional(readOnly = true)
 public class OrderService {
 
+    public static final int DEFAULT_TRANSITION_CHUNK_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Recorded as the last modifier when no auditor is available
+    static final String SYSTEM_USER = "system";
+
     private final OrderRepository orderRepository;
+    private final OrderChangeRecorder changeRecorder;
+    private final OrderPipeline orderPipeline;
+    private final OptimisticRetry optimisticRetry;
+    private final OrderIdGenerator orderIdGenerator;
+    private final OrderCountEstimator orderCountEstimator;
+    private final AuditorAware<String> auditor;
+    private final TransactionOperations transactionOperations;
+    private final StatusUpdateMode statusUpdateMode;
 
     public OrderService(OrderRepository orderRepository) {
+        this(orderRepository, OrderChangeRecorder.inMemory(), null, OptimisticRetry.withDefaults(),
+                OrderIdGenerator.timeOrdered(), OrderCountEstimator.withDefaults(orderRepository),
+                () -> Optional.of(SYSTEM_USER), TransactionOperations.withoutTransaction(),
+                StatusUpdateMode.CONDITIONAL);
+    }
+
+    @Autowired
+    public OrderService(OrderRepository orderRepository,
+                        OrderChangeRecorder changeRecorder,
+                        @Nullable OrderPipeline orderPipeline,
+                        OptimisticRetry optimisticRetry,
+                        OrderIdGenerator orderIdGenerator,
+                        OrderCountEstimator orderCountEstimator,
+                        @Qualifier("auditorProvider") AuditorAware<String> auditor,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${order.concurrency.mode:conditional}") String statusUpdateMode) {
+        this(orderRepository, changeRecorder, orderPipeline, optimisticRetry, orderIdGenerator,
+                orderCountEstimator, auditor, new TransactionTemplate(transactionManager),
+                StatusUpdateMode.valueOf(statusUpdateMode.toUpperCase(Locale.ROOT)));
+    }
+
+    public OrderService(OrderRepository orderRepository,
+                        OrderChangeRecorder changeRecorder,
+                        @Nullable OrderPipeline orderPipeline,
+                        OptimisticRetry optimisticRetry,
+                        OrderIdGenerator orderIdGenerator,
+                        OrderCountEstimator orderCountEstimator,
+                        AuditorAware<String> auditor,
+                        TransactionOperations transactionOperations,
+                        StatusUpdateMode statusUpdateMode) {
         this.orderRepository = orderRepository;
+        this.changeRecorder = changeRecorder;
+        this.orderPipeline = orderPipeline;
+        this.optimisticRetry = optimisticRetry;
+        this.orderIdGenerator = orderIdGenerator;
+        this.orderCountEstimator = orderCountEstimator;
+        this.auditor = auditor;
+        this.transactionOperations = transactionOperations;
+        this.statusUpdateMode = statusUpdateMode;
     }
 
     /**
@@ -40,22 +112,102 @@ public class OrderService {
      */
     @Transactional
     public Order createOrder(Order order) {
+        prepareNewOrder(order, Instant.now());
+
+        // The order is new, so it is inserted without looking for an existing row first
+        Order saved = orderRepository.insert(order);
+        changeRecorder.created(List.of(saved), currentAuditor());
+        handOffToPipeline(List.of(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Creates several orders at once. Each order is validated on its own; the valid ones are saved
+     * together in this transaction and the invalid ones are reported without failing the batch
+     * @param orders The orders to create, at most {@link #MAX_BATCH_SIZE}
+     * @return One result per submitted order, in submission order
+     * @throws InvalidOrderOperationException if the batch is larger than {@link #MAX_BATCH_SIZE}
+     */
+    @Transactional
+    public List<OrderCreationResult> createOrders(List<Order> orders) {
+        if (orders.size() > MAX_BATCH_SIZE) {
+            throw new InvalidOrderOperationException(
+                "A batch may contain at most " + MAX_BATCH_SIZE + " orders, got " + orders.size());
+        }
+        OrderCreationResult[] results = new OrderCreationResult[orders.size()];
+        List<Order> accepted = new ArrayList<>(orders.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(orders.size());
+        Instant now = Instant.now();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String error = validateNewOrder(order);
+            if (error != null) {
+                results[i] = OrderCreationResult.failed(i, error);
+            } else {
+                prepareNewOrder(order, now);
+                accepted.add(order);
+                acceptedIndexes.add(i);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Order> saved = orderRepository.insertAll(accepted);
+            for (int j = 0; j < saved.size(); j++) {
+                int index = acceptedIndexes.get(j);
+                results[index] = OrderCreationResult.created(index, saved.get(j));
+            }
+            changeRecorder.created(saved, currentAuditor());
+            handOffToPipeline(saved.stream().map(Order::getId).toList());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Assigns the ID, initial status, timestamps and total of an order about to be inserted
+     */
+    private void prepareNewOrder(Order order, Instant now) {
         // Set initial status and timestamps
-        order.setId(UUID.randomUUID());
+        order.setId(orderIdGenerator.next());
         order.setStatus(OrderStatus.PENDING);
-        order.setCreatedAt(Instant.now());
-        order.setUpdatedAt(Instant.now());
-        
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+
         // Set order reference in items
         if (order.getItems() != null) {
             order.getItems().forEach(item -> item.setOrder(order));
         }
-        
+
         // Calculate and set order total
         calculateOrderTotal(order);
-        
-        // Save the order
-        return orderRepository.save(order);
+    }
+
+    /**
+     * Checks an order submitted in a batch
+     * @return A description of the first problem found, or null if the order is valid
+     */
+    static String validateNewOrder(Order order) {
+        if (order == null) {
+            return "Order is missing";
+        }
+        if (order.getCustomerId() == null) {
+            return "customerId is missing or not a valid UUID";
+        }
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            return "Order must contain at least one item";
+        }
+        for (int i = 0; i < order.getItems().size(); i++) {
+            OrderItem item = order.getItems().get(i);
+            if (item.getProductId() == null || item.getProductId().isBlank()) {
+                return "items[" + i + "]: Product ID is required";
+            }
+            if (item.getQuantity() < 1) {
+                return "items[" + i + "]: Quantity must be at least 1";
+            }
+            if (item.getUnitPrice() == null || item.getUnitPrice().signum() < 0) {
+                return "items[" + i + "]: Unit price must not be negative";
+            }
+        }
+        return null;
     }
     
     /**
@@ -96,10 +248,7 @@ public class OrderService {
      * @return Page of orders
      */
     public Page<Order> listOrders(int page, int size, String sortBy, String direction) {
-        Sort.Direction sortDirection = "ASC".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        String sortField = sortBy == null || sortBy.trim().isEmpty() ? "createdAt" : sortBy;
-        Pageable pageable = PageRequest.of(page, size, sortDirection, sortField);
-        return orderRepository.findAll(pageable);
+        return orderRepository.findAll(toPageable(page, size, sortBy, direction));
     }
     
     /**
@@ -112,9 +261,7 @@ public class OrderService {
      * @return Page of orders with the specified status
      */
     public Page<Order> listOrders(OrderStatus status, int page, int size, String sortBy, String direction) {
-        Sort.Direction sortDirection = "ASC".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        String sortField = sortBy == null || sortBy.trim().isEmpty() ? "createdAt" : sortBy;
-        Pageable pageable = PageRequest.of(page, size, sortDirection, sortField);
+        Pageable pageable = toPageable(page, size, sortBy, direction);
         
         if (status != null) {
             return orderRepository.findByStatus(status, pageable);
@@ -122,7 +269,139 @@ public class OrderService {
             return orderRepository.findAll(pageable);
         }
     }
+
+    /**
+     * Finds orders by status with offset pagination, choosing how the total is obtained
+     * @param status Optional status filter
+     * @param page Page number (0-based)
+     * @param size Number of items per page
+     * @param sortBy Field to sort by
+     * @param direction Sort direction (ASC/DESC)
+     * @param countMode NONE returns a Slice without a total; ESTIMATE and EXACT return a Page
+     * @return Slice (or Page) of orders
+     */
+    public Slice<Order> listOrders(@Nullable OrderStatus status, int page, int size, String sortBy, String direction,
+                                   CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return listOrders(status, page, size, sortBy, direction);
+        }
+        Pageable pageable = toPageable(page, size, sortBy, direction);
+        Slice<Order> slice = orderRepository.findSlice(status, pageable);
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+        return new PageImpl<>(slice.getContent(), pageable, estimateTotal(status, slice));
+    }
+
+    private static Pageable toPageable(int page, int size, String sortBy, String direction) {
+        Sort.Direction sortDirection = "ASC".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String sortField = sortBy == null || sortBy.trim().isEmpty() ? "createdAt" : sortBy;
+        return PageRequest.of(page, size, sortDirection, sortField);
+    }
+
+    /**
+     * Cached estimate, corrected by what the slice itself proves: the last slice knows the exact
+     * total, and any other slice implies at least one more order after it
+     */
+    private long estimateTotal(@Nullable OrderStatus status, Slice<Order> slice) {
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            return seen;
+        }
+        return Math.max(orderCountEstimator.estimate(status), seen + 1);
+    }
     
+    /**
+     * Lists orders newest first with keyset pagination: each page continues from the cursor of the
+     * previous one, so deep pages cost the same as the first and no count query is run
+     * @param status Optional status filter
+     * @param cursor Token from {@link OrderSlice#getNextCursor()}, or null for the first page
+     * @param size Number of orders per page
+     * @return The page and the cursor of the page after it
+     * @throws InvalidOrderOperationException if the cursor is malformed or the size is out of range
+     */
+    public OrderSlice scrollOrders(@Nullable OrderStatus status, @Nullable String cursor, int size) {
+        return scrollOrders(status, cursor, size, CountMode.NONE);
+    }
+
+    /**
+     * Keyset listing as {@link #scrollOrders(OrderStatus, String, int)}, optionally with the total
+     * number of matching orders
+     * @param countMode ESTIMATE or EXACT to fill {@link OrderSlice#getTotalElements()}
+     */
+    public OrderSlice scrollOrders(@Nullable OrderStatus status, @Nullable String cursor, int size,
+                                   CountMode countMode) {
+        OrderCursor after = decodeCursor(cursor, size);
+        // One extra row tells whether another page follows without counting
+        List<Order> orders = orderRepository.findPageAfter(status, after, size + 1);
+        Long total = switch (countMode) {
+            case NONE -> null;
+            case ESTIMATE -> orderCountEstimator.estimate(status);
+            case EXACT -> orderRepository.count(status);
+        };
+        return toSlice(orders, size, total);
+    }
+
+    /**
+     * Lists one customer's orders newest first with keyset pagination, like
+     * {@link #scrollOrders(OrderStatus, String, int)} but seeking on the customer's index entries
+     * @param customerId The customer whose orders to list
+     * @param cursor Token from {@link OrderSlice#getNextCursor()}, or null for the first page
+     * @param size Number of orders per page
+     * @return The page and the cursor of the page after it
+     * @throws InvalidOrderOperationException if the cursor is malformed or the size is out of range
+     */
+    public OrderSlice scrollCustomerOrders(UUID customerId, @Nullable String cursor, int size) {
+        OrderCursor after = decodeCursor(cursor, size);
+        return toSlice(orderRepository.findCustomerPageAfter(customerId, after, size + 1), size, null);
+    }
+
+    /**
+     * Hands every matching order to {@code action}, oldest first, straight from the repository's
+     * forward-only read; nothing is collected, so memory use does not grow with the export
+     * @param status Only orders in this status, or all orders when null
+     * @param from Only orders created at or after this instant, or no lower bound when null
+     * @param to Only orders created before this instant, or no upper bound when null
+     * @throws InvalidOrderOperationException if {@code from} is not before {@code to}
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(@Nullable OrderStatus status, @Nullable Instant from, @Nullable Instant to,
+                             Consumer<Order> action) {
+        checkExportRange(from, to);
+        orderRepository.forEachOrder(status, from, to, action);
+    }
+
+    /**
+     * Validates an export's time range up front, so a bad request is rejected before any output
+     * @throws InvalidOrderOperationException if {@code from} is not before {@code to}
+     */
+    public void checkExportRange(@Nullable Instant from, @Nullable Instant to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidOrderOperationException("from must be before to");
+        }
+    }
+
+    @Nullable
+    private static OrderCursor decodeCursor(@Nullable String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidOrderOperationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            return cursor == null || cursor.isEmpty() ? null : OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderOperationException("Invalid page cursor");
+        }
+    }
+
+    // orders holds up to size + 1 rows; the extra one only signals that another page follows
+    private static OrderSlice toSlice(List<Order> orders, int size, @Nullable Long total) {
+        if (orders.size() <= size) {
+            return new OrderSlice(orders, null, total);
+        }
+        List<Order> page = orders.subList(0, size);
+        return new OrderSlice(page, OrderCursor.of(page.get(size - 1)).encode(), total);
+    }
+
     /**
      * Backward compatible method to get all orders without pagination
      * @deprecated Use listOrders with pagination parameters instead
@@ -143,33 +422,77 @@ public class OrderService {
      * @param id The order ID
      * @param newStatus The new status
      * @return The updated order if found, empty otherwise
+     * @throws InvalidStatusTransitionException if the order's current status does not allow the change
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Order> updateOrderStatus(UUID id, OrderStatus newStatus) {
-        return orderRepository.findById(id).map(order -> {
-            order.setStatus(newStatus);
-            order.setUpdatedAt(Instant.now());
-            return orderRepository.save(order);
-        });
+        return changeStatus(id, newStatus);
     }
 
     /**
      * Cancels an order if it's not already shipped or delivered
      * @param id The order ID
-     * @return The cancelled order if found and not already in a final state, empty otherwise
+     * @return The cancelled order if found, empty otherwise
+     * @throws InvalidStatusTransitionException if the order is already in a state that cannot be cancelled
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Order> cancelOrder(UUID id) {
-        return orderRepository.findById(id).map(order -> {
-            if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
-                throw new IllegalStateException("Cannot cancel an order that has already been " + 
-                    order.getStatus().name().toLowerCase());
-            }
-            order.setStatus(OrderStatus.CANCELLED);
-            order.setUpdatedAt(Instant.now());
-            return orderRepository.save(order);
+        return changeStatus(id, OrderStatus.CANCELLED);
+    }
+
+    /**
+     * Applies a status change in the configured {@link StatusUpdateMode} and records it in the outbox
+     * and the order's history in the same transaction. Optimistic attempts that lose to another writer
+     * are retried, each in a transaction of its own, which is why the public callers run outside any
+     * transaction of their caller
+     * @param id The order ID
+     * @param target The requested status
+     * @return The updated order if found, empty otherwise
+     * @throws com.example.oms.exception.OrderVersionConflictException if every optimistic attempt conflicted
+     */
+    private Optional<Order> changeStatus(UUID id, OrderStatus target) {
+        String updatedBy = currentAuditor();
+        return switch (statusUpdateMode) {
+            case CONDITIONAL -> transactionOperations.execute(status -> compareAndSetStatus(id, target, updatedBy));
+            case OPTIMISTIC -> optimisticRetry.execute(() -> transactionOperations.execute(status ->
+                    orderRepository.findById(id).map(order -> saveStatus(order, target, updatedBy))));
+            case PESSIMISTIC -> transactionOperations.execute(status ->
+                    orderRepository.findByIdForUpdate(id).map(order -> saveStatus(order, target, updatedBy)));
+        };
+    }
+
+    /**
+     * Applies a status change as a single compare-and-set against the allowed predecessors of the
+     * target status, writing only status, updatedAt and updatedBy; the order is only read afterwards,
+     * to build the response
+     */
+    private Optional<Order> compareAndSetStatus(UUID id, OrderStatus target, String updatedBy) {
+        Instant now = Instant.now();
+        if (orderRepository.updateStatus(id, target.allowedPredecessors(), target, now, updatedBy)) {
+            changeRecorder.statusChanged(List.of(id), target, now, updatedBy);
+            return orderRepository.findById(id);
+        }
+        // Lost or rejected: tell a missing order apart from a disallowed transition
+        return orderRepository.findById(id).map(current -> {
+            throw new InvalidStatusTransitionException(id, current.getStatus(), target);
         });
     }
+
+    /**
+     * Checks the transition on an order read in the current transaction and saves it with its version
+     */
+    private Order saveStatus(Order order, OrderStatus target, String updatedBy) {
+        if (!order.getStatus().canTransitionTo(target)) {
+            throw new InvalidStatusTransitionException(order.getId(), order.getStatus(), target);
+        }
+        Instant now = Instant.now();
+        order.setStatus(target);
+        order.setUpdatedAt(now);
+        order.setUpdatedBy(updatedBy);
+        Order saved = orderRepository.save(order);
+        changeRecorder.statusChanged(List.of(order.getId()), target, now, updatedBy);
+        return saved;
+    }
     
     /**
      * Deletes an order by ID
@@ -184,6 +507,31 @@ public class OrderService {
         }).orElse(false);
     }
     
+    /**
+     * Queues created orders for asynchronous processing once their transaction has committed,
+     * so pipeline workers never look for a row that is not visible yet
+     * @param orderIds The created order IDs
+     */
+    private void handOffToPipeline(List<UUID> orderIds) {
+        if (orderPipeline == null || orderIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    orderIds.forEach(orderPipeline::submit);
+                }
+            });
+        } else {
+            orderIds.forEach(orderPipeline::submit);
+        }
+    }
+
+    private String currentAuditor() {
+        return auditor.getCurrentAuditor().orElse(SYSTEM_USER);
+    }
+
     /**
      * Calculates and sets the total price of an order based on its items
      * @param order The order to calculate the total for
@@ -203,17 +551,39 @@ public class OrderService {
      * Processes all pending orders by changing their status to PROCESSING
      * @return The number of processed orders
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int processPendingOrders() {
-        List<Order> pending = orderRepository.findByStatus(OrderStatus.PENDING, Pageable.unpaged()).getContent();
-        int updated = 0;
-        for (Order order : pending) {
-            order.setStatus(OrderStatus.PROCESSING);
-            order.setUpdatedAt(Instant.now());
-            orderRepository.save(order);
-            updated++;
+        return processPendingOrders(DEFAULT_TRANSITION_CHUNK_SIZE).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Moves pending orders to PROCESSING with set-based updates, committing each chunk separately
+     * together with its outbox events and history
+     * @param chunkSize Maximum number of orders updated per statement
+     * @return The number of orders processed by each chunk
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Integer> processPendingOrders(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
         }
-        return updated;
+        List<Integer> chunks = new ArrayList<>();
+        int claimed;
+        do {
+            // Each chunk claims its rows with SKIP LOCKED and commits before the next one is taken
+            claimed = transactionOperations.execute(status -> {
+                List<UUID> ids = orderRepository.claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, chunkSize);
+                // Bulk claims leave the orders' last modifier as it was, and so does their history
+                changeRecorder.statusChanged(ids, OrderStatus.PROCESSING, Instant.now(), null);
+                return ids.size();
+            });
+            if (claimed > 0) {
+                chunks.add(claimed);
+            }
+        } while (claimed == chunkSize);
+        return chunks;
     }
 
     public static class OrderNotFoundException extends RuntimeException {
@@ -227,6 +597,25 @@ public class OrderService {
             super(message);
         }
     }
+
+    public static class InvalidStatusTransitionException extends InvalidOrderOperationException {
+        private final OrderStatus currentStatus;
+        private final OrderStatus requestedStatus;
+
+        public InvalidStatusTransitionException(UUID id, OrderStatus currentStatus, OrderStatus requestedStatus) {
+            super("Cannot change order " + id + " from " + currentStatus + " to " + requestedStatus);
+            this.currentStatus = currentStatus;
+            this.requestedStatus = requestedStatus;
+        }
+
+        public OrderStatus getCurrentStatus() {
+            return currentStatus;
+        }
+
+        public OrderStatus getRequestedStatus() {
+            return requestedStatus;
+        }
+    }
 }
 
 
@@ -0,0 +1,43 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+
+import java.util.List;
+
+/**
+ * One keyset page of orders and the token for the page after it.
+ */
+public final class OrderSlice {
+
+    private final List<Order> orders;
+    private final String nextCursor;
+    private final Long totalElements;
+
+    public OrderSlice(List<Order> orders, String nextCursor, Long totalElements) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * Opaque token for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Total number of matching orders, or null if the listing was requested without a count
+     */
+    public Long getTotalElements() {
+        return totalElements;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.oms.service;
+
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.model.OrderStatus;
+import org.springframework.lang.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Which order changes a watcher of the {@link OrderChangeFeed} receives. A change must match every
+ * criterion that is set; with none set, every change matches.
+ */
+public final class OrderWatchFilter {
+
+    public static final int MAX_ORDER_IDS = 1000;
+
+    private final Set<UUID> orderIds;
+    private final UUID customerId;
+    private final Set<OrderStatus> statuses;
+
+    /**
+     * @param orderIds Only these orders, or any when empty
+     * @param customerId Only this customer's orders, or any customer's when null
+     * @param statuses Only changes into these statuses, or into any when empty
+     * @throws OrderService.InvalidOrderOperationException if more than {@link #MAX_ORDER_IDS} ids are given
+     */
+    public OrderWatchFilter(Set<UUID> orderIds, @Nullable UUID customerId, Set<OrderStatus> statuses) {
+        if (orderIds.size() > MAX_ORDER_IDS) {
+            throw new OrderService.InvalidOrderOperationException(
+                    "At most " + MAX_ORDER_IDS + " order ids can be watched, got " + orderIds.size());
+        }
+        this.orderIds = Set.copyOf(orderIds);
+        this.customerId = customerId;
+        this.statuses = Set.copyOf(statuses);
+    }
+
+    public static OrderWatchFilter all() {
+        return new OrderWatchFilter(Set.of(), null, Set.of());
+    }
+
+    /**
+     * @param customerId The customer of the changed order, or null if it is unknown
+     */
+    public boolean matches(OrderLifecycleEvent event, @Nullable UUID customerId) {
+        return matchesOrder(event) && (this.customerId == null || this.customerId.equals(customerId));
+    }
+
+    /**
+     * True if whether the change matches depends on its customer, i.e. it meets every other criterion
+     */
+    public boolean needsCustomer(OrderLifecycleEvent event) {
+        return customerId != null && matchesOrder(event);
+    }
+
+    private boolean matchesOrder(OrderLifecycleEvent event) {
+        return (orderIds.isEmpty() || orderIds.contains(event.getOrderId()))
+                && (statuses.isEmpty() || statuses.contains(event.getStatus()));
+    }
+}
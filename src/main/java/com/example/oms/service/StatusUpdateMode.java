@@ -0,0 +1,14 @@
+package com.example.oms.service;
+
+/**
+ * How {@link OrderService} applies a status change to a single order, set with
+ * {@code order.concurrency.mode}.
+ */
+public enum StatusUpdateMode {
+    /** One UPDATE guarded by the allowed predecessor statuses; nothing is read first */
+    CONDITIONAL,
+    /** Read, check and save with the order version, retried by {@link OptimisticRetry} on a conflict */
+    OPTIMISTIC,
+    /** Read with SELECT ... FOR UPDATE, then check and save while the row stays locked */
+    PESSIMISTIC
+}
@@ -0,0 +1,3 @@
+-- Lets "WHERE status = ? ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED" walk the index in order
+-- and stop after LIMIT rows instead of locking every row with the status during a filesort
+CREATE INDEX idx_orders_status_created_at ON orders (status, created_at);
@@ -0,0 +1,7 @@
+-- Client-supplied idempotency keys for order creation; rows older than the configured TTL are purged
+CREATE TABLE IF NOT EXISTS order_idempotency_keys (
+    idempotency_key VARCHAR(128) PRIMARY KEY,
+    order_id BINARY(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    INDEX idx_order_idempotency_keys_created_at (created_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,11 @@
+-- Item ids come from a pooled generator instead of AUTO_INCREMENT so Hibernate can batch the INSERTs.
+-- MySQL has no sequences, so Hibernate emulates order_items_seq with a single-row table; each read
+-- reserves the 50 ids up to and including next_val and advances it by 50 (allocationSize).
+CREATE TABLE IF NOT EXISTS order_items_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO order_items_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM order_items;
+
+ALTER TABLE order_items MODIFY id BIGINT NOT NULL;
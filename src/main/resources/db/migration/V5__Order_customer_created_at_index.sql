@@ -0,0 +1,5 @@
+-- Serves the per-customer history newest first: "WHERE customer_id = ? AND (created_at, id) < (?, ?)
+-- ORDER BY created_at DESC, id DESC LIMIT ?" is a backward range scan that stops after LIMIT rows.
+-- The new index has customer_id as its prefix, so idx_orders_customer_id becomes redundant.
+CREATE INDEX idx_orders_customer_created_at ON orders (customer_id, created_at);
+DROP INDEX idx_orders_customer_id ON orders;
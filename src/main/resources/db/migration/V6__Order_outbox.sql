@@ -0,0 +1,13 @@
+-- Transactional outbox: lifecycle events are inserted in the transaction that changes the order and
+-- relayed to downstream systems afterwards. Ids are UUIDv7, so primary key order is recording order.
+-- Undelivered rows are claimed with "WHERE delivered_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP
+-- LOCKED", a range scan of idx_order_outbox_delivered_at; delivered rows are purged by the same index.
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id BINARY(16) PRIMARY KEY,
+    order_id BINARY(16) NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    delivered_at TIMESTAMP(6) NULL,
+    INDEX idx_order_outbox_delivered_at (delivered_at, id)
+) ENGINE=InnoDB;
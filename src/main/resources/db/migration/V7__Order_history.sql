@@ -0,0 +1,23 @@
+-- Append-only order history. Each order's events are numbered from 1 (CREATED) and clustered by
+-- (order_id, sequence_number), so an order's history, or the part after a snapshot, is one range scan.
+CREATE TABLE IF NOT EXISTS order_events (
+    order_id BINARY(16) NOT NULL,
+    sequence_number BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    recorded_by VARCHAR(100),
+    status VARCHAR(20),
+    customer_id BINARY(16),
+    items MEDIUMTEXT,
+    PRIMARY KEY (order_id, sequence_number)
+) ENGINE=InnoDB;
+
+-- The order as it was after every order.history.snapshot-interval-th event, so rebuilding an order at
+-- any time replays fewer events than that
+CREATE TABLE IF NOT EXISTS order_snapshots (
+    order_id BINARY(16) NOT NULL,
+    sequence_number BIGINT NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    state MEDIUMTEXT NOT NULL,
+    PRIMARY KEY (order_id, sequence_number)
+) ENGINE=InnoDB;
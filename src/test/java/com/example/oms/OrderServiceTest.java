@@ -1,14 +1,33 @@
 package com.example.oms;
 
+import com.example.oms.exception.OrderVersionConflictException;
 import com.example.oms.model.Order;
+import com.example.oms.model.OrderIdGenerator;
 import com.example.oms.model.OrderItem;
 import com.example.oms.model.OrderStatus;
+import com.example.oms.pipeline.OrderPipeline;
+import com.example.oms.repository.InMemoryIdempotencyKeyRepository;
 import com.example.oms.repository.InMemoryOrderRepository;
+import com.example.oms.service.IdempotencyCache;
+import com.example.oms.service.CountMode;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderCreationResult;
+import com.example.oms.service.OrderIdempotencyService;
 import com.example.oms.service.OrderService;
+import com.example.oms.service.OrderSlice;
+import com.example.oms.service.StatusUpdateMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -92,6 +111,7 @@ public class OrderServiceTest {
         // Verify status was updated
         Order fetched = orderService.getOrder(created.getId()).orElseThrow();
         assertEquals(OrderStatus.PROCESSING, fetched.getStatus());
+        assertEquals("system", fetched.getUpdatedBy());
     }
 
     @Test
@@ -240,6 +260,271 @@ public class OrderServiceTest {
         assertTrue(descResult.get(0).getCreatedAt().isAfter(descResult.get(1).getCreatedAt()));
         assertTrue(descResult.get(1).getCreatedAt().isAfter(descResult.get(2).getCreatedAt()));
     }
-}
 
+    @Test
+    void processPendingOrdersInChunks() {
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.setCustomerId(UUID.randomUUID());
+            order.setItems(List.of(new OrderItem("P" + i, "Product " + i, 1, BigDecimal.TEN)));
+            orderService.createOrder(order);
+        }
+
+        List<Integer> chunks = orderService.processPendingOrders(2);
+        assertEquals(List.of(2, 2, 1), chunks);
+
+        var processing = orderService.listOrders(OrderStatus.PROCESSING, 0, 10, "createdAt", "asc");
+        assertEquals(5, processing.getTotalElements());
+        assertEquals(0, orderService.processPendingOrders());
+    }
+
+    @Test
+    void pipelineProcessesNewOrdersWithoutWaitingForTheSweep() throws InterruptedException {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderPipeline pipeline = new OrderPipeline(repository, OrderChangeRecorder.inMemory(),
+                TransactionOperations.withoutTransaction(), meterRegistry, 100, 10, 1, 1);
+        pipeline.start();
+        try {
+            OrderService service = new OrderService(repository, OrderChangeRecorder.inMemory(), pipeline,
+                    OptimisticRetry.withDefaults(), OrderIdGenerator.timeOrdered(),
+                    OrderCountEstimator.withDefaults(repository), () -> Optional.of("test"),
+                    TransactionOperations.withoutTransaction(), StatusUpdateMode.CONDITIONAL);
+            Order order = new Order();
+            order.setCustomerId(UUID.randomUUID());
+            order.setItems(List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.TEN)));
+            Order created = service.createOrder(order);
+
+            awaitProcessedBatch(meterRegistry);
+
+            assertEquals(OrderStatus.PROCESSING, service.getOrder(created.getId()).orElseThrow().getStatus());
+            assertEquals(1, meterRegistry.get("order.pipeline.latency").timer().count());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void pipelineLatencyOnlyCountsOrdersItMoved() throws InterruptedException {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Order cancelled = repository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                OrderStatus.CANCELLED, List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.TEN))));
+        OrderPipeline pipeline = new OrderPipeline(repository, OrderChangeRecorder.inMemory(),
+                TransactionOperations.withoutTransaction(), meterRegistry, 100, 10, 1, 1);
+        pipeline.start();
+        try {
+            assertTrue(pipeline.submit(cancelled.getId()));
+            awaitProcessedBatch(meterRegistry);
+
+            assertEquals(OrderStatus.CANCELLED, repository.findById(cancelled.getId()).orElseThrow().getStatus());
+            assertEquals(0, meterRegistry.get("order.pipeline.latency").timer().count());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    // The processing stage records its own latency after the whole batch has been handled
+    private static void awaitProcessedBatch(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("order.pipeline.stage.latency").tag("stage", "processing").timer().count() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, meterRegistry.get("order.pipeline.stage.latency").tag("stage", "processing").timer().count());
+    }
+
+    @Test
+    void rejectsTransitionsOutsideTheStateMachine() {
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem("P8", "Product 8", 1, BigDecimal.TEN)));
+        Order created = orderService.createOrder(order);
+        orderService.updateOrderStatus(created.getId(), OrderStatus.SHIPPED).orElseThrow();
+        orderService.updateOrderStatus(created.getId(), OrderStatus.DELIVERED).orElseThrow();
+
+        OrderService.InvalidStatusTransitionException backwards = assertThrows(
+                OrderService.InvalidStatusTransitionException.class,
+                () -> orderService.updateOrderStatus(created.getId(), OrderStatus.PENDING));
+        assertEquals(OrderStatus.DELIVERED, backwards.getCurrentStatus());
+        assertThrows(OrderService.InvalidStatusTransitionException.class,
+                () -> orderService.cancelOrder(created.getId()));
+        assertEquals(OrderStatus.DELIVERED, orderService.getOrder(created.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void statusTransitionTable() {
+        assertTrue(OrderStatus.PENDING.canTransitionTo(OrderStatus.PROCESSING));
+        assertTrue(OrderStatus.PROCESSING.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.PENDING));
+        assertEquals(EnumSet.of(OrderStatus.PENDING, OrderStatus.PROCESSING),
+                OrderStatus.CANCELLED.allowedPredecessors());
+        assertTrue(OrderStatus.CANCELLED.isFinal());
+    }
+
+    @Test
+    void saveFromStaleCopyIsRejected() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem("P9", "Product 9", 1, BigDecimal.TEN)));
+        Order created = new OrderService(repository).createOrder(order);
 
+        Order first = repository.findById(created.getId()).orElseThrow();
+        Order second = repository.findById(created.getId()).orElseThrow();
+        assertEquals(first.getVersion() + 1, repository.save(first).getVersion());
+        assertThrows(OrderVersionConflictException.class, () -> repository.save(second));
+    }
+
+    @Test
+    void optimisticStatusChangeRetriesAfterVersionConflict() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository() {
+            private boolean interfered;
+
+            @Override
+            public Optional<Order> findById(UUID id) {
+                Optional<Order> read = super.findById(id);
+                if (!interfered) {
+                    // Another writer saves the order right after this read
+                    interfered = true;
+                    super.findById(id).ifPresent(super::save);
+                }
+                return read;
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderService service = new OrderService(repository, OrderChangeRecorder.inMemory(), null,
+                new OptimisticRetry(3, 0, 0, 0, meterRegistry), OrderIdGenerator.timeOrdered(),
+                OrderCountEstimator.withDefaults(repository), () -> Optional.of("test"),
+                TransactionOperations.withoutTransaction(), StatusUpdateMode.OPTIMISTIC);
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem("P10", "Product 10", 1, BigDecimal.TEN)));
+        Order created = service.createOrder(order);
+
+        Order updated = service.updateOrderStatus(created.getId(), OrderStatus.PROCESSING).orElseThrow();
+
+        assertEquals(OrderStatus.PROCESSING, updated.getStatus());
+        assertEquals(2L, updated.getVersion());
+        assertEquals(1.0, meterRegistry.get("order.concurrency.retries").counter().count());
+    }
+
+    @Test
+    void replayedIdempotencyKeyReturnsTheOriginalOrder() {
+        InMemoryIdempotencyKeyRepository keys = new InMemoryIdempotencyKeyRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderIdempotencyService idempotency = idempotencyService(keys, Clock.systemUTC(), meterRegistry);
+
+        Order first = idempotency.createOrder(newOrder("P12"), "client-key-1");
+        Order replayed = idempotency.createOrder(newOrder("P12"), "client-key-1");
+        Order other = idempotency.createOrder(newOrder("P12"), "client-key-2");
+
+        assertEquals(first.getId(), replayed.getId());
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(1.0, meterRegistry.get("order.idempotency.cache").tag("result", "hit").counter().count());
+
+        // A fresh cache (e.g. another replica) falls back to the key table
+        OrderIdempotencyService otherNode = idempotencyService(keys, Clock.systemUTC(), new SimpleMeterRegistry());
+        assertEquals(first.getId(), otherNode.createOrder(newOrder("P12"), "client-key-1").getId());
+
+        // Once the TTL has passed the key creates a new order
+        OrderIdempotencyService later = idempotencyService(keys,
+                Clock.offset(Clock.systemUTC(), Duration.ofDays(2)), new SimpleMeterRegistry());
+        assertNotEquals(first.getId(), later.createOrder(newOrder("P12"), "client-key-1").getId());
+    }
+
+    @Test
+    void createOrdersReportsInvalidEntriesAndSavesTheRest() {
+        Order missingItems = new Order();
+        missingItems.setCustomerId(UUID.randomUUID());
+
+        List<OrderCreationResult> results = orderService.createOrders(
+                List.of(newOrder("P13"), missingItems, newOrder("P14")));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertFalse(results.get(1).isCreated());
+        assertEquals(1, results.get(1).getIndex());
+        assertNotNull(results.get(1).getError());
+        assertTrue(results.get(2).isCreated());
+        assertEquals("P14", orderService.getOrder(results.get(2).getOrder().getId())
+                .orElseThrow().getItems().get(0).getProductId());
+        assertEquals(2, orderService.listOrders(OrderStatus.PENDING, 0, 10, "createdAt", "DESC").getTotalElements());
+    }
+
+    @Test
+    void createOrdersRejectsOversizedBatch() {
+        List<Order> orders = java.util.stream.IntStream.rangeClosed(0, OrderService.MAX_BATCH_SIZE)
+                .mapToObj(i -> newOrder("P" + i))
+                .toList();
+
+        assertThrows(OrderService.InvalidOrderOperationException.class, () -> orderService.createOrders(orders));
+    }
+
+    @Test
+    void scrollOrdersWalksEveryOrderOnceNewestFirst() {
+        for (int i = 0; i < 7; i++) {
+            orderService.createOrder(newOrder("P" + i));
+        }
+
+        List<Order> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderSlice slice = orderService.scrollOrders(null, cursor, 3);
+            seen.addAll(slice.getOrders());
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.stream().map(Order::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedAt().isAfter(seen.get(i - 1).getCreatedAt()));
+        }
+        assertThrows(OrderService.InvalidOrderOperationException.class,
+                () -> orderService.scrollOrders(null, "not-a-cursor", 3));
+    }
+
+    @Test
+    void listOrdersCountModes() {
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(newOrder("P" + i));
+        }
+
+        var uncounted = orderService.listOrders(null, 0, 2, "createdAt", "DESC", CountMode.NONE);
+        assertFalse(uncounted instanceof org.springframework.data.domain.Page);
+        assertTrue(uncounted.hasNext());
+        assertEquals(2, uncounted.getNumberOfElements());
+
+        var estimated = (org.springframework.data.domain.Page<Order>)
+                orderService.listOrders(null, 0, 2, "createdAt", "DESC", CountMode.ESTIMATE);
+        assertEquals(5, estimated.getTotalElements());
+
+        // The estimate is cached, while exact counts and the last page see the new order
+        orderService.createOrder(newOrder("P5"));
+        assertEquals(5, ((org.springframework.data.domain.Page<Order>)
+                orderService.listOrders(null, 0, 2, "createdAt", "DESC", CountMode.ESTIMATE)).getTotalElements());
+        assertEquals(6, ((org.springframework.data.domain.Page<Order>)
+                orderService.listOrders(null, 2, 2, "createdAt", "DESC", CountMode.ESTIMATE)).getTotalElements());
+        assertEquals(6, ((org.springframework.data.domain.Page<Order>)
+                orderService.listOrders(null, 0, 2, "createdAt", "DESC", CountMode.EXACT)).getTotalElements());
+        assertEquals(6L, orderService.scrollOrders(null, null, 2, CountMode.EXACT).getTotalElements());
+        assertNull(orderService.scrollOrders(null, null, 2).getTotalElements());
+    }
+
+    private OrderIdempotencyService idempotencyService(InMemoryIdempotencyKeyRepository keys, Clock clock,
+                                                       SimpleMeterRegistry meterRegistry) {
+        Duration ttl = Duration.ofDays(1);
+        return new OrderIdempotencyService(orderService, keys, TransactionOperations.withoutTransaction(),
+                new IdempotencyCache(100, ttl, clock, meterRegistry), ttl, clock, meterRegistry);
+    }
+
+    private static Order newOrder(String productId) {
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem(productId, "Product " + productId, 1, BigDecimal.TEN)));
+        return order;
+    }
+}
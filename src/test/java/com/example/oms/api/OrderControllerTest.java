@@ -0,0 +1,126 @@
+package com.example.oms.api;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.InMemoryIdempotencyKeyRepository;
+import com.example.oms.repository.InMemoryOrderHistoryRepository;
+import com.example.oms.repository.InMemoryOrderRepository;
+import com.example.oms.service.IdempotencyCache;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderHistoryService;
+import com.example.oms.service.OrderIdempotencyService;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.StatusUpdateMode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerTest {
+
+    // OrderItemResponse carries product ids as UUIDs
+    private static final String PRODUCT_ID = "8f14e45f-ceea-467f-a0e6-7c6a7a6b2a11";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private InMemoryOrderRepository repository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryOrderRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderHistoryService historyService = new OrderHistoryService(new InMemoryOrderHistoryRepository(),
+                OrderHistoryService.DEFAULT_SNAPSHOT_INTERVAL);
+        OrderService orderService = new OrderService(repository, OrderChangeRecorder.inMemory(), null,
+                OptimisticRetry.withDefaults(), OrderIdGenerator.timeOrdered(),
+                OrderCountEstimator.withDefaults(repository), () -> Optional.of("test"),
+                TransactionOperations.withoutTransaction(), StatusUpdateMode.CONDITIONAL);
+        Duration ttl = Duration.ofDays(1);
+        OrderIdempotencyService idempotencyService = new OrderIdempotencyService(orderService,
+                new InMemoryIdempotencyKeyRepository(), TransactionOperations.withoutTransaction(),
+                new IdempotencyCache(10, ttl, Clock.systemUTC(), meterRegistry), ttl, Clock.systemUTC(),
+                meterRegistry);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new OrderController(orderService, idempotencyService, historyService, objectMapper)).build();
+    }
+
+    @Test
+    void exportStreamsTheMatchingOrdersOldestFirst() throws Exception {
+        Instant base = Instant.parse("2024-05-01T00:00:00Z");
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        repository.insertAll(List.of(
+                new Order(newer, UUID.randomUUID(), base.plusSeconds(60), OrderStatus.PENDING,
+                        List.of(new OrderItem(PRODUCT_ID, "Nut", 1, BigDecimal.ONE))),
+                new Order(UUID.randomUUID(), UUID.randomUUID(), base.plusSeconds(30), OrderStatus.SHIPPED,
+                        List.of(new OrderItem(PRODUCT_ID, "Washer", 1, BigDecimal.ONE))),
+                new Order(older, UUID.randomUUID(), base, OrderStatus.PENDING,
+                        List.of(new OrderItem(PRODUCT_ID, "Bolt", 2, BigDecimal.TEN)))));
+
+        MvcResult started = mockMvc.perform(get("/api/orders/export").param("status", "PENDING"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.ndjson\""))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(older.toString(), objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals(2, objectMapper.readTree(lines[0]).get("items").get(0).get("quantity").asInt());
+        assertEquals(newer.toString(), objectMapper.readTree(lines[1]).get("id").asText());
+    }
+
+    @Test
+    void nullBatchEntriesAreReportedAgainstTheirIndex() throws Exception {
+        String customerId = UUID.randomUUID().toString();
+        String body = "{\"orders\":[null,"
+                + "{\"customerId\":\"" + customerId + "\",\"items\":[null]},"
+                + "{\"customerId\":\"" + customerId + "\",\"items\":[{\"productId\":\"" + PRODUCT_ID
+                + "\",\"productName\":\"Bolt\",\"quantity\":1,\"unitPrice\":2.50}]}]}";
+
+        MvcResult result = mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(1, response.get("created").asInt());
+        assertEquals(2, response.get("failed").asInt());
+        assertEquals("Order is missing", response.get("results").get(0).get("error").asText());
+        assertEquals("items[0]: Product ID is required", response.get("results").get(1).get("error").asText());
+        assertTrue(response.get("results").get(2).get("created").asBoolean());
+        assertEquals(1, repository.count(null));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.oms.api;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExportWriterTest {
+
+    private static final UUID ORDER_ID = UUID.fromString("0190f5d2-0000-7000-8000-000000000001");
+    private static final UUID CUSTOMER_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+    private static final Instant CREATED_AT = Instant.parse("2024-05-01T10:15:30Z");
+    // OrderItemResponse carries product ids as UUIDs
+    private static final String PRODUCT_ID = "8f14e45f-ceea-467f-a0e6-7c6a7a6b2a11";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void csvQuotesProductNamesHoldingSeparatorsQuotesAndLineBreaks() throws IOException {
+        Order order = order(ORDER_ID,
+                new OrderItem("P1", "Bolt, \"large\"\nzinc", 2, new BigDecimal("1.50")),
+                new OrderItem("P2", "Plain nut", 1, BigDecimal.TEN));
+        Order empty = order(UUID.fromString("0190f5d2-0000-7000-8000-000000000002"));
+
+        String csv = export(OrderExportFormat.CSV, order, empty).toString(StandardCharsets.UTF_8);
+
+        String columns = "," + CUSTOMER_ID + ",PENDING,2024-05-01T10:15:30Z,2024-05-01T10:15:30Z,";
+        assertEquals("order_id,customer_id,status,created_at,updated_at,total_amount,"
+                + "item_id,product_id,product_name,quantity,unit_price\n"
+                + ORDER_ID + columns + "13.00,,P1,\"Bolt, \"\"large\"\"\nzinc\",2,1.50\n"
+                + ORDER_ID + columns + "13.00,,P2,Plain nut,1,10\n"
+                + empty.getId() + columns + "0,,,,,\n", csv);
+    }
+
+    @Test
+    void ndjsonWritesOneDocumentPerLine() throws IOException {
+        Order first = order(ORDER_ID, new OrderItem(PRODUCT_ID, "Line\nbreak", 1, BigDecimal.ONE));
+        Order second = order(UUID.fromString("0190f5d2-0000-7000-8000-000000000002"));
+
+        String ndjson = export(OrderExportFormat.NDJSON, first, second).toString(StandardCharsets.UTF_8);
+
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode firstDocument = objectMapper.readTree(lines[0]);
+        assertEquals(ORDER_ID.toString(), firstDocument.get("id").asText());
+        assertEquals("Line\nbreak", firstDocument.get("items").get(0).get("productName").asText());
+        assertEquals(second.getId().toString(), objectMapper.readTree(lines[1]).get("id").asText());
+        assertEquals("", export(OrderExportFormat.NDJSON).toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void protobufMessagesAreLengthDelimited() throws IOException {
+        Order first = order(ORDER_ID, new OrderItem("P1", "Widget", 3, BigDecimal.ONE));
+        Order second = order(UUID.fromString("0190f5d2-0000-7000-8000-000000000002"));
+
+        InputStream in = new ByteArrayInputStream(export(OrderExportFormat.PROTOBUF, first, second).toByteArray());
+
+        List<com.example.oms.grpc.Order> messages = new ArrayList<>();
+        com.example.oms.grpc.Order message;
+        while ((message = com.example.oms.grpc.Order.parseDelimitedFrom(in)) != null) {
+            messages.add(message);
+        }
+        assertEquals(2, messages.size());
+        assertEquals(ORDER_ID.toString(), messages.get(0).getId());
+        assertEquals(CREATED_AT.getEpochSecond(), messages.get(0).getCreatedAt().getSeconds());
+        assertEquals("P1", messages.get(0).getItems(0).getProductId());
+        assertEquals(3, messages.get(0).getItems(0).getQuantity());
+        assertEquals(second.getId().toString(), messages.get(1).getId());
+        assertEquals(0, messages.get(1).getItemsCount());
+    }
+
+    private ByteArrayOutputStream export(OrderExportFormat format, Order... orders) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportWriter writer = OrderExportWriter.create(format, out, objectMapper);
+        for (Order order : orders) {
+            writer.accept(order);
+        }
+        writer.finish();
+        return out;
+    }
+
+    private static Order order(UUID id, OrderItem... items) {
+        Order order = new Order(id, CUSTOMER_ID, CREATED_AT, OrderStatus.PENDING, List.of(items));
+        order.setTotalAmount(order.getItems().stream()
+                .map(OrderItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        return order;
+    }
+}
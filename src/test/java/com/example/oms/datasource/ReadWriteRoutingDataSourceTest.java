@@ -0,0 +1,132 @@
+package com.example.oms.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between two embedded databases that each hold a marker row naming their role.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                markedDatabase("primary"), markedDatabase("replica"), meterRegistry);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndOthersThePrimary() {
+        assertEquals("replica", readOnly.execute(status -> role()));
+        assertEquals(1.0, routed("replica"));
+
+        // The lazy proxy also borrows one primary connection up front to read the pool's defaults
+        double primaryBefore = routed("primary");
+        assertEquals("primary", readWrite.execute(status -> role()));
+        assertEquals("primary", role());
+        assertEquals(primaryBefore + 2, routed("primary"));
+        assertEquals(1.0, routed("replica"));
+    }
+
+    @Test
+    void pinnedReadsUseThePrimaryInsideReadOnlyTransactions() {
+        assertEquals("primary", readOnly.execute(status -> ReadWriteRoutingDataSource.onPrimary(this::role)));
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void recentlyWrittenKeysAreReadFromThePrimaryUntilTheWindowCloses() {
+        MutableClock clock = new MutableClock();
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(true, Duration.ofSeconds(5), clock);
+        UUID written = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+
+        tracker.recordWrite(written);
+
+        assertEquals("primary", readOnly.execute(status -> tracker.read(written, this::role)));
+        assertEquals("replica", readOnly.execute(status -> tracker.read(untouched, this::role)));
+
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals("replica", readOnly.execute(status -> tracker.read(written, this::role)));
+    }
+
+    @Test
+    void disabledTrackerNeverPins() {
+        ReadYourWritesTracker tracker = ReadYourWritesTracker.disabled();
+        UUID written = UUID.randomUUID();
+
+        tracker.recordWrite(written);
+
+        assertFalse(tracker.isPinned(written));
+        assertEquals("replica", readOnly.execute(status -> tracker.read(written, this::role)));
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get("order.datasource.connections.routed").tag("target", target).counter().count();
+    }
+
+    private String role() {
+        return jdbc.queryForObject("SELECT name FROM db_role", String.class);
+    }
+
+    private static DataSource markedDatabase(String role) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE db_role (name VARCHAR(16))");
+        jdbc.update("INSERT INTO db_role (name) VALUES (?)", role);
+        return dataSource;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
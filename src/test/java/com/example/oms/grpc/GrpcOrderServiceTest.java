@@ -0,0 +1,104 @@
+package com.example.oms.grpc;
+
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.repository.InMemoryIdempotencyKeyRepository;
+import com.example.oms.repository.InMemoryOrderRepository;
+import com.example.oms.service.IdempotencyCache;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeFeed;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderIdempotencyService;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.StatusUpdateMode;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcOrderServiceTest {
+
+    private OrderService orderService;
+    private GrpcOrderService grpcOrderService;
+
+    @BeforeEach
+    void setup() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        orderService = new OrderService(repository, OrderChangeRecorder.inMemory(), null,
+                OptimisticRetry.withDefaults(), OrderIdGenerator.timeOrdered(),
+                OrderCountEstimator.withDefaults(repository), () -> Optional.of("test"),
+                TransactionOperations.withoutTransaction(), StatusUpdateMode.CONDITIONAL);
+        Duration ttl = Duration.ofDays(1);
+        OrderIdempotencyService idempotencyService = new OrderIdempotencyService(orderService,
+                new InMemoryIdempotencyKeyRepository(), TransactionOperations.withoutTransaction(),
+                new IdempotencyCache(10, ttl, Clock.systemUTC(), meterRegistry), ttl, Clock.systemUTC(), meterRegistry);
+        grpcOrderService = new GrpcOrderService(orderService, idempotencyService,
+                new OrderChangeFeed(repository, meterRegistry, 10, 10), 10);
+    }
+
+    @Test
+    void statusChangesOfMissingOrdersAreNotFound() {
+        String missing = UUID.randomUUID().toString();
+
+        Recorder update = new Recorder();
+        grpcOrderService.updateOrderStatus(UpdateOrderStatusRequest.newBuilder().setId(missing)
+                .setStatus(OrderStatus.SHIPPED).build(), update);
+        Recorder cancel = new Recorder();
+        grpcOrderService.cancelOrder(OrderId.newBuilder().setId(missing).build(), cancel);
+
+        assertEquals(Status.Code.NOT_FOUND, update.code());
+        assertEquals(Status.Code.NOT_FOUND, cancel.code());
+    }
+
+    @Test
+    void aMissingTargetStatusIsAnInvalidArgument() {
+        com.example.oms.model.Order order = new com.example.oms.model.Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new com.example.oms.model.OrderItem("P1", "Product 1", 1, BigDecimal.TEN)));
+        String id = orderService.createOrder(order).getId().toString();
+
+        Recorder unspecified = new Recorder();
+        grpcOrderService.updateOrderStatus(UpdateOrderStatusRequest.newBuilder().setId(id).build(), unspecified);
+        Recorder disallowed = new Recorder();
+        grpcOrderService.updateOrderStatus(UpdateOrderStatusRequest.newBuilder().setId(id)
+                .setStatus(OrderStatus.DELIVERED).build(), disallowed);
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, unspecified.code());
+        assertEquals(Status.Code.FAILED_PRECONDITION, disallowed.code());
+    }
+
+    private static final class Recorder implements StreamObserver<Order> {
+        private Throwable error;
+
+        @Override
+        public void onNext(Order order) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        Status.Code code() {
+            assertInstanceOf(StatusRuntimeException.class, error);
+            return ((StatusRuntimeException) error).getStatus().getCode();
+        }
+    }
+}
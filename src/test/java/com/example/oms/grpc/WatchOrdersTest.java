@@ -0,0 +1,265 @@
+package com.example.oms.grpc;
+
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.repository.InMemoryIdempotencyKeyRepository;
+import com.example.oms.repository.InMemoryOrderHistoryRepository;
+import com.example.oms.repository.InMemoryOrderOutboxRepository;
+import com.example.oms.repository.InMemoryOrderRepository;
+import com.example.oms.service.IdempotencyCache;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeFeed;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderHistoryService;
+import com.example.oms.service.OrderIdempotencyService;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.StatusUpdateMode;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchOrdersTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderChangeFeed feed;
+    private OrderService orderService;
+    private Server server;
+    private ManagedChannel channel;
+    private OrderServiceGrpc.OrderServiceStub stub;
+
+    @BeforeEach
+    void start() throws IOException {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new OrderChangeFeed(repository, meterRegistry, 100, 1000);
+        feed.start();
+        OrderChangeRecorder recorder = new OrderChangeRecorder(new InMemoryOrderOutboxRepository(),
+                new OrderHistoryService(new InMemoryOrderHistoryRepository(), OrderHistoryService.DEFAULT_SNAPSHOT_INTERVAL),
+                feed);
+        orderService = new OrderService(repository, recorder, null, OptimisticRetry.withDefaults(),
+                OrderIdGenerator.timeOrdered(), OrderCountEstimator.withDefaults(repository),
+                () -> Optional.of("test"), TransactionOperations.withoutTransaction(),
+                StatusUpdateMode.CONDITIONAL);
+        Duration ttl = Duration.ofDays(1);
+        OrderIdempotencyService idempotencyService = new OrderIdempotencyService(orderService,
+                new InMemoryIdempotencyKeyRepository(), TransactionOperations.withoutTransaction(),
+                new IdempotencyCache(10, ttl, Clock.systemUTC(), meterRegistry), ttl, Clock.systemUTC(), meterRegistry);
+        server = NettyServerBuilder.forPort(0)
+                .addService(new GrpcOrderService(orderService, idempotencyService, feed, 100))
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        stub = OrderServiceGrpc.newStub(channel);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        feed.stop();
+    }
+
+    @Test
+    void eachStreamReceivesTheCommittedChangesMatchingItsFilter() throws InterruptedException {
+        UUID firstCustomer = UUID.randomUUID();
+        com.example.oms.model.Order existing = orderService.createOrder(newOrder(UUID.randomUUID()));
+
+        Watch byCustomer = watch(WatchOrdersRequest.newBuilder().setCustomerId(firstCustomer.toString()).build());
+        Watch cancellations = watch(WatchOrdersRequest.newBuilder()
+                .addStatuses(com.example.oms.grpc.OrderStatus.CANCELLED).build());
+        Watch byId = watch(WatchOrdersRequest.newBuilder().addOrderIds(existing.getId().toString()).build());
+        awaitWatchers(3);
+
+        com.example.oms.model.Order created = orderService.createOrder(newOrder(firstCustomer));
+        orderService.cancelOrder(existing.getId());
+        orderService.updateOrderStatus(created.getId(), com.example.oms.model.OrderStatus.PROCESSING);
+        orderService.cancelOrder(created.getId());
+
+        assertEquals(List.of(created.getId() + " PENDING", created.getId() + " PROCESSING",
+                created.getId() + " CANCELLED"), byCustomer.next(3));
+        assertEquals(List.of(existing.getId() + " CANCELLED", created.getId() + " CANCELLED"), cancellations.next(2));
+        assertEquals(List.of(existing.getId() + " CANCELLED"), byId.next(1));
+        assertNull(byId.responses.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(firstCustomer.toString(), byCustomer.last.getCustomerId());
+    }
+
+    @Test
+    void malformedFiltersAreRejected() throws InterruptedException {
+        Watch badCustomer = watch(WatchOrdersRequest.newBuilder().setCustomerId("not-a-uuid").build());
+        Watch badStatus = watch(WatchOrdersRequest.newBuilder()
+                .addStatuses(com.example.oms.grpc.OrderStatus.ORDER_STATUS_UNSPECIFIED).build());
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, badCustomer.awaitError().getStatus().getCode());
+        assertEquals(Status.Code.INVALID_ARGUMENT, badStatus.awaitError().getStatus().getCode());
+    }
+
+    @Test
+    void aClientThatFallsBehindGetsOneResyncInsteadOfTheDroppedUpdates() {
+        FakeCall call = new FakeCall();
+        OrderWatchStream stream = new OrderWatchStream(call, 2);
+        List<OrderLifecycleEvent> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            events.add(OrderLifecycleEvent.statusChanged(UUID.randomUUID(), com.example.oms.model.OrderStatus.SHIPPED,
+                    Instant.now()));
+        }
+
+        call.ready = false;
+        assertTrue(stream.onChange(events.get(0), null));
+        assertTrue(stream.onChange(events.get(1), null));
+        assertFalse(stream.onChange(events.get(2), null));
+        assertTrue(stream.onChange(events.get(3), null));
+        assertTrue(call.sent.isEmpty());
+
+        call.ready = true;
+        stream.drain();
+        assertEquals(2, call.sent.size());
+        assertEquals(3, call.sent.get(0).getResync().getDroppedUpdates());
+        assertEquals(events.get(3).getOrderId().toString(), call.sent.get(1).getUpdate().getOrderId());
+
+        stream.onMissed();
+        assertTrue(stream.onChange(events.get(0), null));
+        assertEquals(0, call.sent.get(2).getResync().getDroppedUpdates());
+        assertEquals(events.get(0).getOrderId().toString(), call.sent.get(3).getUpdate().getOrderId());
+
+        stream.close();
+        stream.onChange(events.get(1), null);
+        assertEquals(4, call.sent.size());
+    }
+
+    private Watch watch(WatchOrdersRequest request) {
+        Watch watch = new Watch();
+        stub.watchOrders(request, watch);
+        return watch;
+    }
+
+    private void awaitWatchers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("order.watch.watchers").gauge().value() < count) {
+            assertTrue(System.nanoTime() < deadline, "watchers did not subscribe");
+            Thread.sleep(10);
+        }
+    }
+
+    private static com.example.oms.model.Order newOrder(UUID customerId) {
+        com.example.oms.model.Order order = new com.example.oms.model.Order();
+        order.setCustomerId(customerId);
+        order.setItems(List.of(new com.example.oms.model.OrderItem("P1", "Product 1", 1, BigDecimal.TEN)));
+        return order;
+    }
+
+    private static final class Watch implements StreamObserver<WatchOrdersResponse> {
+        private final BlockingQueue<WatchOrdersResponse> responses = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+        private OrderUpdate last;
+
+        @Override
+        public void onNext(WatchOrdersResponse response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            errors.add(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        List<String> next(int count) throws InterruptedException {
+            List<String> updates = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                WatchOrdersResponse response = responses.poll(5, TimeUnit.SECONDS);
+                assertNotNull(response, "expected " + count + " updates, got " + updates);
+                last = response.getUpdate();
+                updates.add(last.getOrderId() + " " + last.getStatus());
+            }
+            return updates;
+        }
+
+        StatusRuntimeException awaitError() throws InterruptedException {
+            Throwable error = errors.poll(5, TimeUnit.SECONDS);
+            assertInstanceOf(StatusRuntimeException.class, error);
+            return (StatusRuntimeException) error;
+        }
+    }
+
+    // Stands in for the transport: isReady is whatever the test says, and sent messages are kept
+    private static final class FakeCall extends ServerCallStreamObserver<WatchOrdersResponse> {
+        private final List<WatchOrdersResponse> sent = new ArrayList<>();
+        private boolean ready = true;
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void onNext(WatchOrdersResponse value) {
+            sent.add(value);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
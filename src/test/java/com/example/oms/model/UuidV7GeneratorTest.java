@@ -0,0 +1,67 @@
+package com.example.oms.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void encodesVersionVariantAndTimestamp() {
+        UUID id = new UuidV7Generator(() -> 1_700_000_000_123L).next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_700_000_000_123L, id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void staysStrictlyIncreasingWithinAMillisecondAndAcrossSequenceOverflow() {
+        UuidV7Generator generator = new UuidV7Generator(() -> 42L);
+        UUID previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            UUID current = generator.next();
+            assertTrue(current.compareTo(previous) > 0);
+            previous = current;
+        }
+    }
+
+    @Test
+    void concurrentCallersGetUniqueOrderedIds() throws Exception {
+        UuidV7Generator generator = new UuidV7Generator(System::currentTimeMillis);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                workers.add(pool.submit(() -> {
+                    List<UUID> local = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        local.add(generator.next());
+                    }
+                    // Each thread observes its own ids in generation order
+                    List<UUID> sorted = new ArrayList<>(local);
+                    Collections.sort(sorted);
+                    assertEquals(sorted, local);
+                    ids.addAll(local);
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(160_000, ids.size());
+    }
+}
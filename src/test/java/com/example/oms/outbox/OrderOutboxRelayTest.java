@@ -0,0 +1,188 @@
+package com.example.oms.outbox;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderLifecycleEvent;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.JpaRepositoryTestConfig;
+import com.example.oms.repository.MySqlOrderHistoryRepository;
+import com.example.oms.repository.MySqlOrderOutboxRepository;
+import com.example.oms.repository.OrderRepository;
+import com.example.oms.repository.jpa.JpaOrderOutboxRepository;
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderHistoryService;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.StatusUpdateMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Import({MySqlOrderOutboxRepository.class, MySqlOrderHistoryRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxRelayTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MySqlOrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private MySqlOrderHistoryRepository historyRepository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @Autowired
+    private JpaOrderOutboxRepository jpaOrderOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private OrderService orderService;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderOutboxRepository.deleteAll();
+        jpaOrderRepository.deleteAll();
+        transaction = new TransactionTemplate(transactionManager);
+        OrderChangeRecorder changeRecorder = new OrderChangeRecorder(outboxRepository,
+                new OrderHistoryService(historyRepository, OrderHistoryService.DEFAULT_SNAPSHOT_INTERVAL), null);
+        orderService = new OrderService(orderRepository, changeRecorder, null, OptimisticRetry.withDefaults(),
+                OrderIdGenerator.timeOrdered(), OrderCountEstimator.withDefaults(orderRepository),
+                () -> Optional.of("test"), transaction, StatusUpdateMode.CONDITIONAL);
+    }
+
+    @Test
+    void eventsCommitAndRollBackWithTheOrderChanges() {
+        Order kept = transaction.execute(status -> orderService.createOrder(newOrder()));
+        transaction.executeWithoutResult(status -> {
+            orderService.createOrder(newOrder());
+            status.setRollbackOnly();
+        });
+        transaction.execute(status -> orderService.cancelOrder(kept.getId()));
+        assertThrows(OrderService.InvalidStatusTransitionException.class,
+                () -> transaction.execute(status -> orderService.updateOrderStatus(kept.getId(), OrderStatus.SHIPPED)));
+        Order pending = transaction.execute(status -> orderService.createOrder(newOrder()));
+        assertEquals(List.of(1), orderService.processPendingOrders(10));
+
+        List<OrderLifecycleEvent> events = new ArrayList<>();
+        OrderOutboxRelay relay = relay(events::addAll, Clock.systemUTC(), new SimpleMeterRegistry(), 2);
+        assertEquals(4, relay.relay());
+
+        assertEquals(List.of(
+                        kept.getId() + " CREATED PENDING",
+                        kept.getId() + " STATUS_CHANGED CANCELLED",
+                        pending.getId() + " CREATED PENDING",
+                        pending.getId() + " STATUS_CHANGED PROCESSING"),
+                events.stream().map(event -> event.getOrderId() + " " + event.getType() + " " + event.getStatus()).toList());
+        assertEquals(0, relay.relay());
+    }
+
+    @Test
+    void aFailedBatchIsRedeliveredAndDeliveredEventsArePurgedAfterTheRetention() {
+        transaction.execute(status -> orderService.createOrder(newOrder()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Instant now = Instant.now().plusSeconds(1);
+        OrderOutboxRelay failing = relay(events -> {
+            throw new IllegalStateException("sink unavailable");
+        }, Clock.fixed(now, ZoneOffset.UTC), meterRegistry, 10);
+
+        assertEquals(0, failing.relay());
+        assertEquals(1.0, meterRegistry.get("order.outbox.delivery.failures").counter().count());
+
+        List<OrderLifecycleEvent> delivered = new ArrayList<>();
+        OrderOutboxRelay relay = relay(delivered::addAll, Clock.fixed(now, ZoneOffset.UTC), meterRegistry, 10);
+        assertEquals(1, relay.relay());
+        assertEquals(1, delivered.size());
+        assertEquals(1, meterRegistry.get("order.outbox.batch.size").summary().count());
+        assertEquals(1, meterRegistry.get("order.outbox.delivery.lag").timer().count());
+
+        relay.purgeDelivered();
+        assertEquals(1, jpaOrderOutboxRepository.count());
+        relay(delivered::addAll, Clock.fixed(now.plus(Duration.ofDays(2)), ZoneOffset.UTC), meterRegistry, 10)
+                .purgeDelivered();
+        assertEquals(0, jpaOrderOutboxRepository.count());
+    }
+
+    @Test
+    void concurrentRelaysSkipEachOthersLockedEvents() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            transaction.execute(status -> orderService.createOrder(newOrder()));
+        }
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<OrderLifecycleEvent>> first = CompletableFuture.supplyAsync(() ->
+                transaction.execute(status -> {
+                    List<OrderLifecycleEvent> batch = outboxRepository.lockUndelivered(2);
+                    locked.countDown();
+                    await(release);
+                    return batch;
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        List<OrderLifecycleEvent> second;
+        try {
+            // Returns without waiting for the first relay; H2 may skip more rows than InnoDB, never fewer
+            second = transaction.execute(status -> outboxRepository.lockUndelivered(10));
+        } finally {
+            release.countDown();
+        }
+        List<UUID> firstIds = first.get(5, TimeUnit.SECONDS).stream().map(OrderLifecycleEvent::getId).toList();
+        assertEquals(2, firstIds.size());
+        assertTrue(second.stream().noneMatch(event -> firstIds.contains(event.getId())));
+    }
+
+    private OrderOutboxRelay relay(OrderEventSink sink, Clock clock, SimpleMeterRegistry meterRegistry, int batchSize) {
+        return new OrderOutboxRelay(outboxRepository, sink, transaction, clock, meterRegistry, batchSize,
+                Duration.ofDays(1));
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.TEN)));
+        return order;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
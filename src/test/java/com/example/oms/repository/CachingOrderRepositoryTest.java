@@ -0,0 +1,70 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingOrderRepositoryTest {
+
+    private InMemoryOrderRepository delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingOrderRepository repository;
+
+    @BeforeEach
+    void setup() {
+        delegate = new InMemoryOrderRepository();
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new CachingOrderRepository(delegate, 100, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCacheAsCopies() {
+        Order order = delegate.save(newOrder());
+
+        repository.findById(order.getId()).orElseThrow().setStatus(OrderStatus.CANCELLED);
+        Order second = repository.findById(order.getId()).orElseThrow();
+
+        assertEquals(OrderStatus.PENDING, second.getStatus());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "orders").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(0.5, meterRegistry.get("order.cache.hit.ratio").gauge().value());
+        assertEquals(1, meterRegistry.get("order.cache.load").timer().count());
+    }
+
+    @Test
+    void writesThroughTheRepositoryAreVisibleOnTheNextRead() {
+        Order order = repository.save(newOrder());
+        assertEquals(OrderStatus.PENDING, repository.findById(order.getId()).orElseThrow().getStatus());
+
+        assertTrue(repository.compareAndSetStatus(order.getId(), EnumSet.of(OrderStatus.PENDING), OrderStatus.PROCESSING));
+        assertEquals(OrderStatus.PROCESSING, repository.findById(order.getId()).orElseThrow().getStatus());
+
+        repository.claimBatch(List.of(order.getId()), OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+        assertEquals(OrderStatus.SHIPPED, repository.findById(order.getId()).orElseThrow().getStatus());
+
+        Order other = repository.save(newOrder());
+        repository.findById(other.getId());
+        repository.claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, 10);
+        assertEquals(OrderStatus.PROCESSING, repository.findById(other.getId()).orElseThrow().getStatus());
+
+        repository.delete(other);
+        assertTrue(repository.findById(other.getId()).isEmpty());
+    }
+
+    private static Order newOrder() {
+        return new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(), OrderStatus.PENDING,
+                List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.ONE)));
+    }
+}
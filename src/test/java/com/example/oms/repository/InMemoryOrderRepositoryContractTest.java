@@ -0,0 +1,128 @@
+package com.example.oms.repository;
+
+import com.example.oms.exception.OrderVersionConflictException;
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOrderRepositoryContractTest extends OrderRepositoryContractTest {
+
+    private InMemoryOrderRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryOrderRepository();
+    }
+
+    @Override
+    protected OrderRepository repository() {
+        return repository;
+    }
+
+    @Test
+    void indexesStayConsistentUnderConcurrentClaimsAndSaves() throws Exception {
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        List<UUID> customers = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            orders.add(new Order(UUID.randomUUID(), customers.get(i % 3), base.plusSeconds(i / 4), OrderStatus.PENDING,
+                    List.of(new OrderItem("P" + i, "Product", 1, BigDecimal.ONE))));
+        }
+        repository.insertAll(orders);
+
+        Set<UUID> claimed = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(executor.submit(() -> {
+                    List<UUID> batch;
+                    while (!(batch = repository.claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, 25)).isEmpty()) {
+                        for (UUID id : batch) {
+                            assertTrue(claimed.add(id), "claimed twice: " + id);
+                        }
+                    }
+                }));
+            }
+            // Meanwhile every tenth order moves to another customer and a later creation time
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < orders.size(); i += 10) {
+                    while (true) {
+                        Order current = repository.findById(orders.get(i).getId()).orElseThrow();
+                        current.setCustomerId(customers.get((i + 1) % 3));
+                        current.setCreatedAt(base.plusSeconds(10_000 + i));
+                        try {
+                            repository.save(current);
+                            break;
+                        } catch (OrderVersionConflictException e) {
+                            // Claimed in between, read it again
+                        }
+                    }
+                }
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(orders.size(), claimed.size());
+        assertEquals(0, repository.count(OrderStatus.PENDING));
+        assertEquals(orders.size(), repository.count(OrderStatus.PROCESSING));
+        assertTrue(repository.findPageAfter(OrderStatus.PENDING, null, 10).isEmpty());
+
+        List<Order> walked = walk(null);
+        assertEquals(orders.size(), new HashSet<>(ids(walked)).size());
+        assertEquals(ids(walked.stream().sorted(OrderCursor.NEWEST_FIRST).toList()), ids(walked));
+        assertEquals(base.plusSeconds(10_000 + 1990), walked.get(0).getCreatedAt());
+        assertEquals(ids(walked), ids(walk(OrderStatus.PROCESSING)));
+
+        int byCustomer = 0;
+        for (UUID customer : customers) {
+            List<Order> theirs = repository.findCustomerPageAfter(customer, null, orders.size());
+            assertTrue(theirs.stream().allMatch(o -> o.getCustomerId().equals(customer)));
+            byCustomer += theirs.size();
+        }
+        assertEquals(orders.size(), byCustomer);
+
+        List<UUID> oldestFirst = ids(walked);
+        Collections.reverse(oldestFirst);
+        assertEquals(oldestFirst.subList(21, 28),
+                ids(repository.findAll(PageRequest.of(3, 7, Sort.by("createdAt"))).getContent()));
+    }
+
+    private List<Order> walk(OrderStatus status) {
+        List<Order> walked = new ArrayList<>();
+        List<Order> page = repository.findPageAfter(status, null, 100);
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            page = repository.findPageAfter(status, OrderCursor.of(page.get(page.size() - 1)), 100);
+        }
+        return walked;
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return new ArrayList<>(orders.stream().map(Order::getId).toList());
+    }
+}
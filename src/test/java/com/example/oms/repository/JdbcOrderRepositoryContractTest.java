@@ -0,0 +1,35 @@
+package com.example.oms.repository;
+
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "repository.type=jdbc")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {JpaRepositoryTestConfig.class, JdbcOrderRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JdbcOrderRepositoryContractTest extends OrderRepositoryContractTest {
+
+    @Autowired
+    private JdbcOrderRepository repository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderRepository.deleteAll();
+    }
+
+    @Override
+    protected OrderRepository repository() {
+        return repository;
+    }
+}
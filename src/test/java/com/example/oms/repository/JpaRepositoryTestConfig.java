@@ -0,0 +1,18 @@
+package com.example.oms.repository;
+
+import com.example.oms.config.AuditConfig;
+import com.example.oms.datasource.ReadYourWritesTracker;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Minimal JPA slice for repository tests running against the embedded database.
+ */
+@SpringBootConfiguration
+@EntityScan("com.example.oms.repository.jpa")
+@EnableJpaRepositories(basePackages = "com.example.oms.repository.jpa")
+@Import({AuditConfig.class, MySqlOrderRepository.class, ReadYourWritesTracker.class})
+public class JpaRepositoryTestConfig {
+}
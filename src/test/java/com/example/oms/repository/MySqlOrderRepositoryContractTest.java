@@ -0,0 +1,134 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.oms.repository.MySqlOrderRepositoryContractTest$StatementLog"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MySqlOrderRepositoryContractTest extends OrderRepositoryContractTest {
+
+    @Autowired
+    private MySqlOrderRepository repository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderRepository.deleteAll();
+    }
+
+    @Test
+    void insertingANewOrderIsPureInserts() {
+        Order order = new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(), OrderStatus.PENDING,
+                List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.ONE), new OrderItem("P2", "Product 2", 1, BigDecimal.ONE)));
+        order.setVersion(3L);
+        StatementLog.STATEMENTS.clear();
+
+        repository.insert(order);
+
+        // A merge of the entity with its assigned id would start with a SELECT from orders
+        List<String> orderStatements = StatementLog.STATEMENTS.stream()
+                .filter(sql -> !sql.contains("order_items_seq"))
+                .toList();
+        assertEquals(2, orderStatements.size(), orderStatements.toString());
+        assertTrue(orderStatements.get(0).startsWith("insert into orders "));
+        assertTrue(orderStatements.get(1).startsWith("insert into order_items "));
+    }
+
+    @Test
+    void editingOneLineOfALargeOrderUpdatesOnlyThatLine() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(new OrderItem("P" + i, "Product " + i, 1, BigDecimal.ONE));
+        }
+        Order saved = repository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                OrderStatus.PENDING, items));
+        Order edited = repository.findById(saved.getId()).orElseThrow();
+        List<UUID> itemIds = edited.getItems().stream().map(OrderItem::getId).toList();
+        edited.getItems().get(100).setQuantity(5);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        repository.save(edited);
+
+        // The order row (for its version) and the edited line; merging a rebuilt aggregate would
+        // have deleted and re-inserted all 200 item rows
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        Order found = repository.findById(saved.getId()).orElseThrow();
+        assertEquals(itemIds, found.getItems().stream().map(OrderItem::getId).toList());
+        assertEquals(5, found.getItems().get(100).getQuantity());
+    }
+
+    @Test
+    void statusUpdateIsOneStatementOnTheOrderRow() {
+        List<OrderItem> items = List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.ONE),
+                new OrderItem("P2", "Product 2", 2, BigDecimal.ONE));
+        Order saved = repository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                OrderStatus.PENDING, items));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        repository.updateStatus(saved.getId(), EnumSet.of(OrderStatus.PENDING), OrderStatus.CANCELLED,
+                Instant.now(), "alice");
+
+        // No SELECT of the aggregate and no DELETE/INSERT of its items, unlike merging a rebuilt entity
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Override
+    protected OrderRepository repository() {
+        return repository;
+    }
+
+    /**
+     * Records the SQL Hibernate prepares, lower-cased.
+     */
+    public static class StatementLog implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
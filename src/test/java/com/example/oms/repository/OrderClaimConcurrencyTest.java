@@ -0,0 +1,151 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import com.example.oms.service.OptimisticRetry;
+import com.example.oms.service.OrderChangeRecorder;
+import com.example.oms.service.OrderCountEstimator;
+import com.example.oms.service.OrderService;
+import com.example.oms.service.StatusUpdateMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderClaimConcurrencyTest {
+
+    private static final int ORDERS = 400;
+    private static final int WORKERS = 8;
+    private static final int BATCH_SIZE = 15;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentClaimsNeverHandOutTheSameOrderTwice() throws Exception {
+        Instant base = Instant.now();
+        for (int i = 0; i < ORDERS; i++) {
+            orderRepository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), base.plusMillis(i),
+                    OrderStatus.PENDING, List.of(new OrderItem("P" + i, "Product " + i, 1, BigDecimal.TEN))));
+        }
+
+        Queue<UUID> processed = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < WORKERS; w++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    List<UUID> batch;
+                    while (!(batch = orderRepository.claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, BATCH_SIZE)).isEmpty()) {
+                        processed.addAll(batch);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<UUID> distinct = new HashSet<>(processed);
+        assertEquals(processed.size(), distinct.size(), "an order was claimed by more than one worker");
+        assertEquals(ORDERS, distinct.size());
+        assertEquals(ORDERS, orderRepository.findByStatus(OrderStatus.PROCESSING, Pageable.unpaged()).getTotalElements());
+        assertTrue(orderRepository.findByStatus(OrderStatus.PENDING, Pageable.unpaged()).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StatusUpdateMode.class)
+    void concurrentStatusChangesOfOneOrderLetExactlyOneWriterWin(StatusUpdateMode mode) throws Exception {
+        OrderService service = new OrderService(orderRepository, OrderChangeRecorder.inMemory(), null,
+                OptimisticRetry.withDefaults(), OrderIdGenerator.timeOrdered(),
+                OrderCountEstimator.withDefaults(orderRepository), () -> Optional.of("test"),
+                new TransactionTemplate(transactionManager), mode);
+        Order order = orderRepository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                OrderStatus.PENDING, List.of(new OrderItem("P1", "Product 1", 1, BigDecimal.TEN))));
+
+        Queue<OrderStatus> won = new ConcurrentLinkedQueue<>();
+        Queue<Exception> rejected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WORKERS; w++) {
+                // Half the writers ship the order, the other half cancel it
+                OrderStatus target = w % 2 == 0 ? OrderStatus.SHIPPED : OrderStatus.CANCELLED;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        service.updateOrderStatus(order.getId(), target).ifPresent(o -> won.add(o.getStatus()));
+                    } catch (OrderService.InvalidStatusTransitionException e) {
+                        rejected.add(e);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, won.size(), "more than one writer changed the order");
+        assertEquals(WORKERS - 1, rejected.size());
+        Order stored = orderRepository.findById(order.getId()).orElseThrow();
+        assertEquals(won.peek(), stored.getStatus());
+        assertEquals(order.getVersion() + 1, stored.getVersion());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.oms.repository.OrderItemBatchInsertTest$ItemInsertCounter")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderItemBatchInsertTest {
+
+    private static final int ITEMS = 50;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderRepository.deleteAll();
+        ItemInsertCounter.PREPARED.set(0);
+    }
+
+    @Test
+    void itemsOfAnOrderArePreparedAsOneBatchedInsert() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new OrderItem("P" + i, "Product " + i, 1, BigDecimal.ONE));
+        }
+
+        Order saved = orderRepository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                OrderStatus.PENDING, items));
+
+        // IDENTITY ids forced one INSERT per item; pooled ids let all of them share one JDBC batch
+        assertEquals(1, ItemInsertCounter.PREPARED.get());
+        assertEquals(ITEMS, orderRepository.findById(saved.getId()).orElseThrow().getItems().size());
+    }
+
+    /**
+     * Counts how often an INSERT into order_items is prepared; a JDBC batch is prepared once.
+     */
+    public static class ItemInsertCounter implements StatementInspector {
+        static final AtomicInteger PREPARED = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase().startsWith("insert into order_items ")) {
+                PREPARED.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
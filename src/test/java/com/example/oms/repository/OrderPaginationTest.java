@@ -0,0 +1,142 @@
+package com.example.oms.repository;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.jpa.JpaOrderRepository;
+import com.example.oms.repository.jpa.OrderEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderPaginationTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JpaOrderRepository jpaOrderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void clean() {
+        jpaOrderRepository.deleteAll();
+    }
+
+    @Test
+    void keysetPagesMatchTheInMemoryOrderIncludingTies() {
+        InMemoryOrderRepository reference = new InMemoryOrderRepository();
+        Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Random random = new Random(42);
+        for (int i = 0; i < 23; i++) {
+            // Top bit clear like every UUIDv7 id: H2 orders UUIDs signed, MySQL BINARY(16) unsigned
+            UUID id = new UUID(random.nextLong() & Long.MAX_VALUE, random.nextLong());
+            // Groups of three orders share a timestamp, so the id tiebreak is exercised
+            Order order = new Order(id, UUID.randomUUID(), base.plusSeconds(i / 3),
+                    i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.PROCESSING,
+                    List.of(new OrderItem("P" + i, "Product " + i, 1, BigDecimal.ONE)));
+            orderRepository.save(order);
+            reference.save(order);
+        }
+
+        assertEquals(ids(scroll(reference, null, 5)), ids(scroll(orderRepository, null, 5)));
+        assertEquals(ids(scroll(reference, OrderStatus.PENDING, 4)), ids(scroll(orderRepository, OrderStatus.PENDING, 4)));
+        assertEquals(23, scroll(orderRepository, null, 5).size());
+        assertEquals(12, scroll(orderRepository, OrderStatus.PENDING, 4).size());
+        assertTrue(scroll(orderRepository, null, 5).stream().allMatch(o -> o.getItems().size() == 1));
+    }
+
+    @Test
+    void offsetPageLimitsOrdersInTheDatabaseAndLoadsItemsInOneQuery() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 10; i++) {
+            orderRepository.save(new Order(UUID.randomUUID(), UUID.randomUUID(), base.plusSeconds(i),
+                    OrderStatus.PENDING, List.of(new OrderItem("A" + i, "Product A", 1, BigDecimal.ONE),
+                                                 new OrderItem("B" + i, "Product B", 2, BigDecimal.ONE))));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Order> page = orderRepository.findAll(PageRequest.of(1, 3, Sort.Direction.DESC, "createdAt"));
+
+        assertEquals(List.of(base.plusSeconds(6), base.plusSeconds(5), base.plusSeconds(4)),
+                page.getContent().stream().map(Order::getCreatedAt).collect(Collectors.toList()));
+        assertTrue(page.getContent().stream().allMatch(o -> o.getItems().size() == 2));
+        assertEquals(10, page.getTotalElements());
+        // id page, count, and one IN query for the page's orders with their items
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(3 + 6, statistics.getEntityLoadCount());
+
+        statistics.clear();
+        Slice<Order> slice = orderRepository.findSlice(OrderStatus.PENDING,
+                PageRequest.of(1, 3, Sort.Direction.DESC, "createdAt"));
+
+        assertEquals(ids(page.getContent()), ids(slice.getContent()));
+        assertTrue(slice.hasNext());
+        // No count: the id slice reads one extra row instead
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void paginatingACollectionFetchInMemoryFailsFast() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> entityManager
+                    .createQuery("SELECT o FROM OrderEntity o LEFT JOIN FETCH o.items", OrderEntity.class)
+                    .setMaxResults(10)
+                    .getResultList());
+            assertTrue(e.getMessage().contains("fail_on_pagination_over_collection_fetch"), e.getMessage());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static List<Order> scroll(OrderRepository repository, OrderStatus status, int pageSize) {
+        List<Order> all = new ArrayList<>();
+        OrderCursor cursor = null;
+        List<Order> page;
+        do {
+            page = repository.findPageAfter(status, cursor, pageSize);
+            all.addAll(page);
+            cursor = page.isEmpty() ? null : OrderCursor.of(page.get(page.size() - 1));
+        } while (page.size() == pageSize);
+        return all;
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.oms.repository;
+
+import com.example.oms.exception.OrderVersionConflictException;
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderCursor;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link OrderRepository} must share; each implementation runs it through a subclass
+ * that supplies an empty repository.
+ */
+abstract class OrderRepositoryContractTest {
+
+    private final Random random = new Random(7);
+    private final Instant base = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    protected abstract OrderRepository repository();
+
+    @Test
+    void savedOrdersAreReadBackWithTheirItems() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 2));
+
+        assertEquals(0L, saved.getVersion());
+        Order found = repository().findById(saved.getId()).orElseThrow();
+        assertEquals(saved.getCustomerId(), found.getCustomerId());
+        assertEquals(base, found.getCreatedAt());
+        assertEquals(OrderStatus.PENDING, found.getStatus());
+        assertEquals(0L, found.getVersion());
+        assertEquals(List.of("P0-0", "P0-1"), found.getItems().stream().map(OrderItem::getProductId).toList());
+        assertEquals("Product 1", found.getItems().get(1).getProductName());
+        assertEquals(2, found.getItems().get(1).getQuantity());
+        assertEquals(0, new BigDecimal("2.50").compareTo(found.getItems().get(1).getUnitPrice()));
+        assertTrue(repository().findById(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void updatesBumpTheVersionAndRejectStaleCopies() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 2));
+        Order stale = repository().findById(saved.getId()).orElseThrow();
+
+        saved.setStatus(OrderStatus.PROCESSING);
+        saved.setItems(List.of(new OrderItem("NEW", "Replacement", 3, BigDecimal.TEN)));
+        Order updated = repository().save(saved);
+
+        assertEquals(1L, updated.getVersion());
+        Order found = repository().findById(saved.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, found.getStatus());
+        assertEquals(List.of("NEW"), found.getItems().stream().map(OrderItem::getProductId).toList());
+        assertThrows(OrderVersionConflictException.class, () -> repository().save(stale));
+    }
+
+    @Test
+    void lockedReadsReturnTheCurrentOrderWithItsItems() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 2));
+        saved.setStatus(OrderStatus.PROCESSING);
+        repository().save(saved);
+
+        Order locked = repository().findByIdForUpdate(saved.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, locked.getStatus());
+        assertEquals(1L, locked.getVersion());
+        assertEquals(List.of("P0-0", "P0-1"), locked.getItems().stream().map(OrderItem::getProductId).toList());
+        assertTrue(repository().findByIdForUpdate(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void editedItemsKeepTheirIdsAndOnlyChangesAreWritten() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 3));
+        Order edited = repository().findById(saved.getId()).orElseThrow();
+        List<UUID> before = itemIds(edited);
+
+        List<OrderItem> items = new ArrayList<>(edited.getItems());
+        items.get(1).setQuantity(7);
+        items.remove(2);
+        items.add(new OrderItem("ADDED", "Added", 1, BigDecimal.ONE));
+        edited.setItems(items);
+        Order updated = repository().save(edited);
+
+        assertEquals(1L, updated.getVersion());
+        Order found = repository().findById(saved.getId()).orElseThrow();
+        assertEquals(List.of("P0-0", "P0-1", "ADDED"), found.getItems().stream().map(OrderItem::getProductId).toList());
+        assertEquals(before.subList(0, 2), itemIds(found).subList(0, 2));
+        assertEquals(itemIds(updated), itemIds(found));
+        assertEquals(7, found.getItems().get(1).getQuantity());
+        assertEquals(1, found.getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void insertsIgnoreAnyGivenVersionAndRejectTakenIds() {
+        Order order = order(0, OrderStatus.PENDING, 2);
+        order.setVersion(5L);
+
+        Order inserted = repository().insert(order);
+
+        assertEquals(0L, inserted.getVersion());
+        assertEquals(2, repository().findById(order.getId()).orElseThrow().getItems().size());
+        assertThrows(DataIntegrityViolationException.class, () -> repository().insert(order));
+        assertEquals(2, repository().insertAll(List.of(order(1, OrderStatus.PENDING, 1),
+                order(2, OrderStatus.PENDING, 0))).size());
+        assertEquals(3, repository().count(null));
+
+        Order fresh = order(3, OrderStatus.PENDING, 1);
+        assertThrows(DataIntegrityViolationException.class, () -> repository().insertAll(List.of(fresh, order)));
+        assertTrue(repository().findById(fresh.getId()).isEmpty());
+        assertEquals(3, repository().count(null));
+    }
+
+    @Test
+    void insertsRequireAnAssignedId() {
+        Order withoutId = order(0, OrderStatus.PENDING, 1);
+        withoutId.setId(null);
+
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> repository().insert(withoutId));
+        assertEquals(0, repository().count(null));
+    }
+
+    @Test
+    void saveAllReturnsTheOrdersInTheGivenOrder() {
+        List<Order> orders = List.of(order(0, OrderStatus.PENDING, 1), order(1, OrderStatus.PENDING, 0),
+                order(2, OrderStatus.PENDING, 3));
+
+        List<Order> saved = repository().saveAll(orders);
+
+        assertEquals(ids(orders), ids(saved));
+        assertEquals(List.of(1, 0, 3), saved.stream().map(o -> o.getItems().size()).toList());
+        assertEquals(3, repository().count(null));
+        assertEquals(3, repository().findById(orders.get(2).getId()).orElseThrow().getItems().size());
+    }
+
+    @Test
+    void deletedOrdersAreGone() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 2));
+
+        repository().delete(saved);
+
+        assertTrue(repository().findById(saved.getId()).isEmpty());
+        assertEquals(0, repository().count(null));
+    }
+
+    @Test
+    void offsetPagesSlicesAndCounts() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(repository().save(order(i, i < 3 ? OrderStatus.PENDING : OrderStatus.SHIPPED, 1)));
+        }
+        Sort oldestFirst = Sort.by("createdAt");
+
+        Page<Order> second = repository().findAll(PageRequest.of(1, 2, oldestFirst));
+        assertEquals(ids(orders.subList(2, 4)), ids(second.getContent()));
+        assertEquals(5, second.getTotalElements());
+
+        Page<Order> pending = repository().findByStatus(OrderStatus.PENDING, PageRequest.of(0, 2, oldestFirst.descending()));
+        assertEquals(List.of(orders.get(2).getId(), orders.get(1).getId()), ids(pending.getContent()));
+        assertEquals(3, pending.getTotalElements());
+
+        Slice<Order> slice = repository().findSlice(OrderStatus.PENDING, PageRequest.of(1, 2, oldestFirst));
+        assertEquals(List.of(orders.get(2).getId()), ids(slice.getContent()));
+        assertFalse(slice.hasNext());
+        assertTrue(repository().findSlice(null, PageRequest.of(0, 4, oldestFirst)).hasNext());
+
+        assertEquals(5, repository().count(null));
+        assertEquals(2, repository().count(OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void keysetPagesWalkNewestFirst() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            orders.add(repository().save(order(i / 2, i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.SHIPPED, 1)));
+        }
+        List<UUID> expected = orders.stream().sorted(OrderCursor.NEWEST_FIRST).map(Order::getId).toList();
+
+        List<UUID> walked = new ArrayList<>();
+        List<Order> page = repository().findPageAfter(null, null, 3);
+        while (!page.isEmpty()) {
+            walked.addAll(ids(page));
+            page = repository().findPageAfter(null, OrderCursor.of(page.get(page.size() - 1)), 3);
+        }
+
+        assertEquals(expected, walked);
+        List<Order> shipped = repository().findPageAfter(OrderStatus.SHIPPED, null, 10);
+        assertEquals(3, shipped.size());
+        assertTrue(shipped.stream().allMatch(o -> o.getStatus() == OrderStatus.SHIPPED));
+        assertEquals(1, shipped.get(0).getItems().size());
+    }
+
+    @Test
+    void customerPagesOnlyWalkThatCustomersOrders() {
+        UUID customer = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        List<Order> theirs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            theirs.add(repository().save(ofCustomer(order(i / 2, OrderStatus.PENDING, 1), customer)));
+            repository().save(ofCustomer(order(i, OrderStatus.PENDING, 1), other));
+        }
+        List<UUID> expected = theirs.stream().sorted(OrderCursor.NEWEST_FIRST).map(Order::getId).toList();
+
+        List<UUID> walked = new ArrayList<>();
+        List<Order> page = repository().findCustomerPageAfter(customer, null, 2);
+        while (!page.isEmpty()) {
+            walked.addAll(ids(page));
+            page = repository().findCustomerPageAfter(customer, OrderCursor.of(page.get(page.size() - 1)), 2);
+        }
+        assertEquals(expected, walked);
+
+        repository().delete(theirs.get(0));
+        repository().save(ofCustomer(repository().findById(theirs.get(1).getId()).orElseThrow(), other));
+        List<Order> remaining = repository().findCustomerPageAfter(customer, null, 10);
+        assertEquals(3, remaining.size());
+        assertTrue(remaining.stream().allMatch(o -> o.getCustomerId().equals(customer)));
+        assertEquals(6, repository().findCustomerPageAfter(other, null, 10).size());
+        assertTrue(repository().findCustomerPageAfter(UUID.randomUUID(), null, 10).isEmpty());
+    }
+
+    @Test
+    void exportsWalkOldestFirstWithinTheRange() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            orders.add(repository().save(order(i, i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.SHIPPED, i % 3)));
+        }
+
+        List<Order> exported = new ArrayList<>();
+        repository().forEachOrder(null, base.plusSeconds(1), base.plusSeconds(5), exported::add);
+        assertEquals(ids(orders.subList(1, 5)), ids(exported));
+        for (Order order : exported) {
+            Order saved = repository().findById(order.getId()).orElseThrow();
+            assertEquals(new HashSet<>(itemIds(saved)), new HashSet<>(itemIds(order)));
+        }
+
+        List<Order> shipped = new ArrayList<>();
+        repository().forEachOrder(OrderStatus.SHIPPED, null, null, shipped::add);
+        assertEquals(ids(List.of(orders.get(1), orders.get(3), orders.get(5))), ids(shipped));
+    }
+
+    @Test
+    void statusTransitionsOnlyMoveOrdersInTheExpectedStatus() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(repository().save(order(i, OrderStatus.PENDING, 1)));
+        }
+
+        assertEquals(2, repository().claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, 2).size());
+        assertEquals(3, repository().claimBatch(OrderStatus.PENDING, OrderStatus.PROCESSING, 10).size());
+        assertEquals(0, repository().count(OrderStatus.PENDING));
+
+        assertEquals(3, repository().claimBatch(OrderStatus.PROCESSING, OrderStatus.SHIPPED, 3).size());
+        assertEquals(2, repository().count(OrderStatus.PROCESSING));
+
+        UUID first = orders.get(0).getId();
+        UUID second = orders.get(1).getId();
+        int moved = repository().claimBatch(List.of(first, second), OrderStatus.SHIPPED, OrderStatus.DELIVERED).size();
+        assertEquals(repository().count(OrderStatus.DELIVERED), moved);
+
+        Order target = repository().findPageAfter(OrderStatus.PROCESSING, null, 1).get(0);
+        assertFalse(repository().compareAndSetStatus(target.getId(), EnumSet.of(OrderStatus.PENDING), OrderStatus.CANCELLED));
+        assertTrue(repository().compareAndSetStatus(target.getId(),
+                EnumSet.of(OrderStatus.PENDING, OrderStatus.PROCESSING), OrderStatus.CANCELLED));
+        Order cancelled = repository().findById(target.getId()).orElseThrow();
+        assertEquals(OrderStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(target.getVersion() + 1, cancelled.getVersion());
+    }
+
+    @Test
+    void claimingGivenOrdersReportsWhichOnesMoved() {
+        Order pending = repository().save(order(0, OrderStatus.PENDING, 1));
+        Order cancelled = repository().save(order(1, OrderStatus.CANCELLED, 1));
+        UUID missing = new UUID(0, 42);
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        List<UUID> claimed = repository().claimBatch(List.of(pending.getId(), cancelled.getId(), missing),
+                OrderStatus.PENDING, OrderStatus.PROCESSING);
+
+        assertEquals(List.of(pending.getId()), claimed);
+        Order processing = repository().findById(pending.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, processing.getStatus());
+        assertEquals(pending.getVersion() + 1, processing.getVersion());
+        assertFalse(processing.getUpdatedAt().isBefore(before));
+        assertEquals(OrderStatus.CANCELLED, repository().findById(cancelled.getId()).orElseThrow().getStatus());
+        assertEquals(List.of(), repository().claimBatch(claimed, OrderStatus.PENDING, OrderStatus.PROCESSING));
+    }
+
+    @Test
+    void statusUpdatesLeaveTheItemsAndTheirIdsAlone() {
+        Order saved = repository().save(order(0, OrderStatus.PENDING, 2));
+        List<UUID> itemIds = itemIds(repository().findById(saved.getId()).orElseThrow());
+        Instant updatedAt = base.plusSeconds(60);
+
+        assertTrue(repository().updateStatus(saved.getId(), EnumSet.of(OrderStatus.PENDING), OrderStatus.PROCESSING,
+                updatedAt, "alice"));
+        assertFalse(repository().updateStatus(saved.getId(), EnumSet.of(OrderStatus.PENDING), OrderStatus.CANCELLED,
+                updatedAt, "bob"));
+
+        Order updated = repository().findById(saved.getId()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, updated.getStatus());
+        assertEquals(updatedAt, updated.getUpdatedAt());
+        assertEquals("alice", updated.getUpdatedBy());
+        assertEquals(1L, updated.getVersion());
+        assertEquals(itemIds, itemIds(updated));
+
+        repository().compareAndSetStatus(saved.getId(), EnumSet.of(OrderStatus.PROCESSING), OrderStatus.SHIPPED);
+        repository().claimBatch(List.of(saved.getId()), OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+        Order delivered = repository().findById(saved.getId()).orElseThrow();
+        assertEquals(OrderStatus.DELIVERED, delivered.getStatus());
+        assertEquals("alice", delivered.getUpdatedBy());
+        assertEquals(itemIds, itemIds(delivered));
+    }
+
+    private Order order(int second, OrderStatus status, int items) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            orderItems.add(new OrderItem("P" + second + "-" + i, "Product " + i, i + 1, new BigDecimal("2.50")));
+        }
+        // Top bit clear like every UUIDv7 id: H2 orders UUIDs signed, MySQL BINARY(16) unsigned
+        UUID id = new UUID(random.nextLong() & Long.MAX_VALUE, random.nextLong());
+        return new Order(id, UUID.randomUUID(), base.plusSeconds(second), status, orderItems);
+    }
+
+    private static Order ofCustomer(Order order, UUID customerId) {
+        order.setCustomerId(customerId);
+        return order;
+    }
+
+    private static List<UUID> itemIds(Order order) {
+        return order.getItems().stream().map(OrderItem::getId).collect(Collectors.toList());
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderEvent;
+import com.example.oms.model.OrderIdGenerator;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderSnapshot;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.InMemoryOrderHistoryRepository;
+import com.example.oms.repository.InMemoryOrderOutboxRepository;
+import com.example.oms.repository.InMemoryOrderRepository;
+import com.example.oms.repository.JpaRepositoryTestConfig;
+import com.example.oms.repository.MySqlOrderHistoryRepository;
+import com.example.oms.repository.OrderHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.lang.Nullable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaRepositoryTestConfig.class)
+@Import(MySqlOrderHistoryRepository.class)
+class OrderHistoryServiceTest {
+
+    private static final int SNAPSHOT_INTERVAL = 20;
+    private static final Instant T0 = Instant.parse("2024-05-01T00:00:00Z");
+
+    @Autowired
+    private MySqlOrderHistoryRepository mySqlHistoryRepository;
+
+    private CountingHistoryRepository historyRepository;
+    private OrderHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository = new CountingHistoryRepository(mySqlHistoryRepository);
+        historyService = new OrderHistoryService(historyRepository, SNAPSHOT_INTERVAL);
+    }
+
+    @Test
+    void rebuildingAnOrderReplaysLessThanOneSnapshotIntervalOfEvents() {
+        UUID id = UUID.randomUUID();
+        Order created = new Order(id, UUID.randomUUID(), T0, OrderStatus.PENDING,
+                List.of(new OrderItem("P1", "Widget", 2, new BigDecimal("1.50"))));
+        historyService.record(List.of(OrderEvent.created(created, "alice")));
+        for (int i = 1; i < 1000; i++) {
+            if (i == 500) {
+                Order changed = new Order(id, created.getCustomerId(), T0, OrderStatus.PENDING,
+                        List.of(new OrderItem("P2", "Bolt", 10, new BigDecimal("0.10"))));
+                changed.setUpdatedAt(T0.plusSeconds(i));
+                historyService.record(List.of(OrderEvent.itemsChanged(changed, "carol")));
+            } else {
+                historyService.record(List.of(OrderEvent.statusChanged(id, statusAfter(i), T0.plusSeconds(i), "bob")));
+            }
+        }
+
+        for (int i : new int[] {0, 1, 18, 19, 20, 21, 499, 500, 501, 998, 999}) {
+            historyRepository.replayed = 0;
+            Order state = historyService.stateAt(id, T0.plusSeconds(i)).orElseThrow();
+            assertTrue(historyRepository.replayed < SNAPSHOT_INTERVAL,
+                    "replayed " + historyRepository.replayed + " events at " + i);
+            assertEquals(i == 500 ? statusAfter(499) : statusAfter(i), state.getStatus(), "status at " + i);
+            assertEquals(i < 500 ? "Widget" : "Bolt", state.getItems().get(0).getProductName(), "items at " + i);
+            assertEquals(0, new BigDecimal(i < 500 ? "3.00" : "1.00").compareTo(state.getTotalAmount()));
+            assertEquals("alice", state.getCreatedBy());
+            assertEquals(i == 0 ? "alice" : i == 500 ? "carol" : "bob", state.getUpdatedBy());
+            assertEquals(T0.plusSeconds(i), state.getUpdatedAt());
+        }
+        assertEquals(T0, historyService.stateAt(id, T0.plusSeconds(5000)).orElseThrow().getCreatedAt());
+        assertTrue(historyService.stateAt(id, T0.minusMillis(1)).isEmpty());
+    }
+
+    @Test
+    void ordersWithoutACreatedEventHaveNoHistory() {
+        UUID id = UUID.randomUUID();
+        historyService.record(List.of(OrderEvent.statusChanged(id, OrderStatus.CANCELLED, T0, "bob")));
+
+        assertTrue(historyRepository.lastSequences(List.of(id)).isEmpty());
+        assertTrue(historyService.stateAt(id, T0.plusSeconds(1)).isEmpty());
+    }
+
+    @Test
+    void orderServiceWritesAreRecordedInTheOrdersHistory() {
+        InMemoryOrderRepository orders = new InMemoryOrderRepository();
+        OrderService orderService = new OrderService(orders,
+                new OrderChangeRecorder(new InMemoryOrderOutboxRepository(), historyService, null), null,
+                OptimisticRetry.withDefaults(), OrderIdGenerator.timeOrdered(), OrderCountEstimator.withDefaults(orders),
+                () -> Optional.of("alice"), TransactionOperations.withoutTransaction(),
+                StatusUpdateMode.CONDITIONAL);
+        Order order = new Order();
+        order.setCustomerId(UUID.randomUUID());
+        order.setItems(List.of(new OrderItem("P1", "Widget", 1, BigDecimal.TEN)));
+        Order created = orderService.createOrder(order);
+        Order updated = orderService.updateOrderStatus(created.getId(), OrderStatus.PROCESSING).orElseThrow();
+        orderService.cancelOrder(created.getId());
+
+        Order atCreation = historyService.stateAt(created.getId(), created.getCreatedAt()).orElseThrow();
+        assertEquals(OrderStatus.PENDING, atCreation.getStatus());
+        assertEquals("P1", atCreation.getItems().get(0).getProductId());
+        Order afterUpdate = historyService.stateAt(created.getId(), updated.getUpdatedAt()).orElseThrow();
+        assertEquals(OrderStatus.PROCESSING, afterUpdate.getStatus());
+        assertEquals("P1", afterUpdate.getItems().get(0).getProductId());
+        Order now = historyService.stateAt(created.getId(), Instant.now()).orElseThrow();
+        assertEquals(OrderStatus.CANCELLED, now.getStatus());
+        assertEquals("alice", now.getUpdatedBy());
+    }
+
+    @Test
+    void itemsWithoutAPriceAreReadBackWithoutOne() {
+        UUID id = UUID.randomUUID();
+        historyService.record(List.of(OrderEvent.created(new Order(id, UUID.randomUUID(), T0, OrderStatus.PENDING,
+                List.of(new OrderItem("P1", "Widget", 2, null))), "alice")));
+
+        Order state = historyService.stateAt(id, T0).orElseThrow();
+        assertNull(state.getItems().get(0).getUnitPrice());
+        assertEquals(2, state.getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void concurrentChangesOfOneOrderGetDistinctSequencesInMemory() throws Exception {
+        InMemoryOrderHistoryRepository inMemory = new InMemoryOrderHistoryRepository();
+        OrderHistoryService service = new OrderHistoryService(inMemory, SNAPSHOT_INTERVAL);
+        UUID id = UUID.randomUUID();
+        service.record(List.of(OrderEvent.created(new Order(id, UUID.randomUUID(), T0, OrderStatus.PENDING,
+                List.of(new OrderItem("P1", "Widget", 1, BigDecimal.ONE))), "alice")));
+
+        int writers = 8;
+        int changesPerWriter = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                running.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= changesPerWriter; i++) {
+                        service.record(List.of(OrderEvent.statusChanged(id, statusAfter(i), T0.plusSeconds(i), "bob")));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : running) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long expected = 1 + writers * changesPerWriter;
+        assertEquals(expected, inMemory.lastSequences(List.of(id)).get(id));
+        assertEquals(expected, inMemory.findEvents(id, 0, null).size());
+    }
+
+    private static OrderStatus statusAfter(int i) {
+        return i % 2 == 1 ? OrderStatus.PROCESSING : OrderStatus.PENDING;
+    }
+
+    private static final class CountingHistoryRepository implements OrderHistoryRepository {
+        private final OrderHistoryRepository delegate;
+        private int replayed;
+
+        private CountingHistoryRepository(OrderHistoryRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Map<UUID, Long> lastSequences(Collection<UUID> orderIds) {
+            return delegate.lastSequences(orderIds);
+        }
+
+        @Override
+        public void append(List<OrderEvent> events) {
+            delegate.append(events);
+        }
+
+        @Override
+        public void numberAndAppend(Runnable numberAndAppend) {
+            delegate.numberAndAppend(numberAndAppend);
+        }
+
+        @Override
+        public void saveSnapshot(UUID orderId, OrderSnapshot snapshot) {
+            delegate.saveSnapshot(orderId, snapshot);
+        }
+
+        @Override
+        public Optional<OrderSnapshot> findLatestSnapshot(UUID orderId, @Nullable Instant at) {
+            return delegate.findLatestSnapshot(orderId, at);
+        }
+
+        @Override
+        public List<OrderEvent> findEvents(UUID orderId, long afterSequence, @Nullable Instant at) {
+            List<OrderEvent> events = new ArrayList<>(delegate.findEvents(orderId, afterSequence, at));
+            replayed += events.size();
+            return events;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.oms.service;
+
+import com.example.oms.model.Order;
+import com.example.oms.model.OrderItem;
+import com.example.oms.model.OrderStatus;
+import com.example.oms.repository.InMemoryOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<OrderImportService> services = new ArrayList<>();
+
+    @AfterEach
+    void stop() {
+        services.forEach(OrderImportService::stop);
+    }
+
+    @Test
+    void csvRowsOfOneOrderFormOneOrderAndBadRecordsAreReported() throws IOException {
+        UUID first = new UUID(1, 1);
+        UUID second = new UUID(2, 2);
+        UUID customer = UUID.randomUUID();
+        Path file = write("orders.csv",
+                "order_id,customer_id,status,created_at,product_id,product_name,quantity,unit_price",
+                first + "," + customer + ",SHIPPED,2024-03-01T10:00:00Z,P1,\"Widget, \"\"large\"\"\",2,1.50",
+                first + "," + customer + ",SHIPPED,2024-03-01T10:00:00Z,P2,Bolt,10,0.10",
+                "",
+                second + "," + customer + ",,,P3,Nut,x,0.05",
+                "," + customer + ",,,P4,Washer,3,0.01");
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+
+        OrderImportResult result = service(repository, 2).importFile(file, null, true);
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals(5, result.getRejections().get(0).getLine());
+        assertEquals("quantity: invalid value 'x'", result.getRejections().get(0).getError());
+        Order imported = repository.findById(first).orElseThrow();
+        assertEquals(OrderStatus.SHIPPED, imported.getStatus());
+        assertEquals(Instant.parse("2024-03-01T10:00:00Z"), imported.getCreatedAt());
+        assertEquals(List.of("Widget, \"large\"", "Bolt"),
+                imported.getItems().stream().map(OrderItem::getProductName).toList());
+        assertEquals(0, new BigDecimal("4.00").compareTo(imported.getTotalAmount()));
+        assertTrue(repository.findById(second).isEmpty());
+        assertEquals(2, repository.count(null));
+        assertFalse(Files.exists(OrderImportCheckpoint.pathFor(file)));
+    }
+
+    @Test
+    void aFailedImportResumesAfterTheLastCommittedChunk() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            lines.add("{\"id\":\"" + new UUID(i, i) + "\",\"customerId\":\"" + UUID.randomUUID()
+                    + "\",\"items\":[{\"productId\":\"P" + i + "\",\"quantity\":1,\"unitPrice\":2.5}]}");
+        }
+        Path file = write("orders.ndjson", lines.toArray(String[]::new));
+        AtomicInteger writes = new AtomicInteger();
+        InMemoryOrderRepository failingOnce = new InMemoryOrderRepository() {
+            @Override
+            public List<Order> insertAll(List<Order> orders) {
+                if (writes.incrementAndGet() == 2) {
+                    throw new IllegalStateException("connection lost");
+                }
+                return super.insertAll(orders);
+            }
+        };
+        OrderImportService service = service(failingOnce, 2);
+
+        assertThrows(IllegalStateException.class, () -> service.importFile(file, null, true));
+        assertEquals(2, failingOnce.count(null));
+        assertTrue(Files.exists(OrderImportCheckpoint.pathFor(file)));
+
+        OrderImportResult resumed = service.importFile(file, null, true);
+        assertEquals(2, resumed.getResumedAtLine());
+        assertEquals(5, resumed.getImported());
+        assertEquals(0, resumed.getDuplicates());
+        assertEquals(5, failingOnce.count(null));
+
+        OrderImportResult again = service.importFile(file, OrderImportFormat.NDJSON, false);
+        assertEquals(0, again.getImported());
+        assertEquals(5, again.getDuplicates());
+    }
+
+    @Test
+    void ordersWithoutIdsAreNotImportedTwiceWhenTheCheckpointWasLost() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            lines.add("{\"customerId\":\"" + UUID.randomUUID()
+                    + "\",\"items\":[{\"productId\":\"P" + i + "\",\"quantity\":1,\"unitPrice\":2.5}]}");
+        }
+        Path file = write("no-ids.ndjson", lines.toArray(String[]::new));
+        AtomicInteger writes = new AtomicInteger();
+        // The second chunk commits, then the import dies before its checkpoint is written
+        InMemoryOrderRepository dyingAfterCommit = new InMemoryOrderRepository() {
+            @Override
+            public List<Order> insertAll(List<Order> orders) {
+                List<Order> inserted = super.insertAll(orders);
+                if (writes.incrementAndGet() == 2) {
+                    throw new IllegalStateException("killed");
+                }
+                return inserted;
+            }
+        };
+        OrderImportService service = service(dyingAfterCommit, 2);
+
+        assertThrows(IllegalStateException.class, () -> service.importFile(file, null, true));
+        assertEquals(4, dyingAfterCommit.count(null));
+
+        OrderImportResult resumed = service.importFile(file, null, true);
+        assertEquals(5, dyingAfterCommit.count(null));
+        assertEquals(3, resumed.getImported());
+        assertEquals(2, resumed.getDuplicates());
+    }
+
+    @Test
+    void theAdminEndpointOnlyReadsFromTheImportDirectory() {
+        OrderImportService service = service(new InMemoryOrderRepository(), 10);
+
+        assertEquals(directory.resolve("a.csv"), service.resolveInImportDirectory("a.csv"));
+        assertThrows(OrderService.InvalidOrderOperationException.class,
+                () -> service.resolveInImportDirectory("../etc/passwd"));
+    }
+
+    private OrderImportService service(InMemoryOrderRepository repository, int chunkSize) {
+        OrderImportService service = new OrderImportService(repository, new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(),
+                directory.toString(), chunkSize, 2);
+        services.add(service);
+        return service;
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(directory.resolve(name), List.of(lines));
+    }
+}